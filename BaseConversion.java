@@ -0,0 +1,312 @@
+import java.math.BigInteger;
+import java.util.Arrays;
+
+// Conversion between digit strings and BigInteger for bases 2..36.
+//
+// Parsing: digits are looked up in a table and packed into long chunks of as many
+// digits as fit below 2^63, so BigInteger is only touched once per chunk. Short inputs
+// fold the chunks into 64-bit limbs in place; long inputs split the chunks in two and
+// join the halves with a cached power of the base, which keeps the big
+// multiplications balanced instead of growing one digit at a time.
+//
+// Formatting runs the same recursion backwards: large values are split by the cached
+// power nearest their square root, and small ones are peeled into int-sized chunks.
+// Digits are written right to left into a caller-supplied char buffer.
+public final class BaseConversion {
+
+    // Chunk counts at or below this are folded linearly
+    static final int LINEAR_CHUNKS = 48;
+
+    // Values up to this many bits are formatted without splitting
+    static final int LINEAR_FORMAT_BITS = 1536;
+
+    private static final char[] DIGIT_CHARS = "0123456789abcdefghijklmnopqrstuvwxyz".toCharArray();
+
+    private static final byte[] DIGITS = new byte[128];
+    private static final int[] CHUNK_DIGITS = new int[37];
+    private static final long[] CHUNK_RADIX = new long[37];
+    private static final int[] INT_CHUNK_DIGITS = new int[37];
+    private static final int[] INT_CHUNK_RADIX = new int[37];
+
+    // POWERS[base][i] = CHUNK_RADIX[base]^(2^i), filled on demand
+    private static final BigInteger[][] POWERS = new BigInteger[37][];
+
+    static {
+        Arrays.fill(DIGITS, (byte) -1);
+        for (int d = 0; d < 10; d++) {
+            DIGITS['0' + d] = (byte) d;
+        }
+        for (int d = 0; d < 26; d++) {
+            DIGITS['a' + d] = (byte) (10 + d);
+            DIGITS['A' + d] = (byte) (10 + d);
+        }
+        for (int base = 2; base <= 36; base++) {
+            int digits = 0;
+            long radix = 1;
+            while (radix <= Long.MAX_VALUE / base) {
+                radix *= base;
+                digits++;
+            }
+            CHUNK_DIGITS[base] = digits;
+            CHUNK_RADIX[base] = radix;
+            POWERS[base] = new BigInteger[] { BigInteger.valueOf(radix) };
+
+            digits = 0;
+            int intRadix = 1;
+            while (intRadix <= Integer.MAX_VALUE / base) {
+                intRadix *= base;
+                digits++;
+            }
+            INT_CHUNK_DIGITS[base] = digits;
+            INT_CHUNK_RADIX[base] = intRadix;
+        }
+    }
+
+    private BaseConversion() {
+    }
+
+    // Parse integer from given base
+    public static BigInteger parse(CharSequence value, int base) {
+        return parse(value, 0, value.length(), base);
+    }
+
+    // Parse the digits value[from, to) in the given base
+    public static BigInteger parse(CharSequence value, int from, int to, int base) {
+        if (base < 2 || base > 36) {
+            throw new IllegalArgumentException("Unsupported base: " + base);
+        }
+        int length = to - from;
+        if (length == 0) {
+            return BigInteger.ZERO;
+        }
+
+        int perChunk = CHUNK_DIGITS[base];
+        int count = (length + perChunk - 1) / perChunk;
+        long[] chunks = new long[count];
+
+        // The most significant chunk takes the leftover digits
+        int pos = from;
+        int width = length - (count - 1) * perChunk;
+        for (int c = 0; c < count; c++) {
+            long chunk = 0;
+            for (int end = pos + width; pos < end; pos++) {
+                chunk = chunk * base + digit(value.charAt(pos), base);
+            }
+            chunks[c] = chunk;
+            width = perChunk;
+        }
+
+        return combine(chunks, 0, count, base);
+    }
+
+    // Same as parse(CharSequence, ...) for a raw char buffer, which keeps the digit
+    // loop free of interface calls
+    public static BigInteger parse(char[] value, int from, int to, int base) {
+        if (base < 2 || base > 36) {
+            throw new IllegalArgumentException("Unsupported base: " + base);
+        }
+        int length = to - from;
+        if (length == 0) {
+            return BigInteger.ZERO;
+        }
+
+        int perChunk = CHUNK_DIGITS[base];
+        int count = (length + perChunk - 1) / perChunk;
+        long[] chunks = new long[count];
+
+        int pos = from;
+        int width = length - (count - 1) * perChunk;
+        for (int c = 0; c < count; c++) {
+            long chunk = 0;
+            for (int end = pos + width; pos < end; pos++) {
+                chunk = chunk * base + digit(value[pos], base);
+            }
+            chunks[c] = chunk;
+            width = perChunk;
+        }
+
+        return combine(chunks, 0, count, base);
+    }
+
+    private static int digit(char ch, int base) {
+        int digit = ch < 128 ? DIGITS[ch] : -1;
+        if (digit < 0 || digit >= base) {
+            throw new IllegalArgumentException("Invalid digit '" + Character.toLowerCase(ch) + "' for base " + base);
+        }
+        return digit;
+    }
+
+    private static BigInteger combine(long[] chunks, int from, int to, int base) {
+        int count = to - from;
+        if (count <= LINEAR_CHUNKS) {
+            return linear(chunks, from, to, CHUNK_RADIX[base]);
+        }
+
+        // Low half is the largest power-of-two chunk count below count
+        int level = 31 - Integer.numberOfLeadingZeros(count - 1);
+        int split = to - (1 << level);
+        BigInteger high = combine(chunks, from, split, base);
+        BigInteger low = combine(chunks, split, to, base);
+        return high.multiply(power(base, level)).add(low);
+    }
+
+    // Horner over the chunks with little-endian 64-bit limbs, multiplied in place
+    private static BigInteger linear(long[] chunks, int from, int to, long radix) {
+        long[] limbs = new long[to - from];
+        int used = 0;
+        for (int c = from; c < to; c++) {
+            long carry = chunks[c];
+            for (int i = 0; i < used; i++) {
+                long limb = limbs[i];
+                long lo = limb * radix;
+                long hi = unsignedMultiplyHigh(limb, radix);
+                long sum = lo + carry;
+                if (Long.compareUnsigned(sum, lo) < 0) {
+                    hi++;
+                }
+                limbs[i] = sum;
+                carry = hi;
+            }
+            if (carry != 0) {
+                limbs[used++] = carry;
+            }
+        }
+
+        byte[] magnitude = new byte[used * 8];
+        for (int i = 0; i < used; i++) {
+            long limb = limbs[i];
+            int at = magnitude.length - 8 * (i + 1);
+            for (int b = 7; b >= 0; b--) {
+                magnitude[at + b] = (byte) limb;
+                limb >>>= 8;
+            }
+        }
+        return new BigInteger(1, magnitude);
+    }
+
+    // Format an integer in the given base
+    public static String toString(BigInteger value, int base) {
+        char[] dest = new char[maxDigits(value, base)];
+        int start = format(value, base, dest, dest.length);
+        return new String(dest, start, dest.length - start);
+    }
+
+    // Upper bound on the characters format writes for value, sign included
+    public static int maxDigits(BigInteger value, int base) {
+        return (int) (value.bitLength() / (Math.log(base) / Math.log(2))) + 2;
+    }
+
+    // Writes value so its last digit lands at dest[end - 1]; returns the index of the
+    // first character written
+    public static int format(BigInteger value, int base, char[] dest, int end) {
+        if (base < 2 || base > 36) {
+            throw new IllegalArgumentException("Unsupported base: " + base);
+        }
+        int start = formatMagnitude(value.abs(), base, dest, end, 0);
+        if (value.signum() < 0) {
+            dest[--start] = '-';
+        }
+        return start;
+    }
+
+    // width > 0 pads with leading zeros to exactly that many digits
+    private static int formatMagnitude(BigInteger value, int base, char[] dest, int end, int width) {
+        int bits = value.bitLength();
+        if (bits <= LINEAR_FORMAT_BITS) {
+            return formatLinear(value, base, dest, end, width);
+        }
+
+        // Split by the largest cached power no longer than half of the value
+        int level = 0;
+        while (power(base, level + 1).bitLength() <= (bits + 1) / 2) {
+            level++;
+        }
+        BigInteger[] parts = value.divideAndRemainder(power(base, level));
+        int lowDigits = CHUNK_DIGITS[base] << level;
+        int mid = formatMagnitude(parts[1], base, dest, end, lowDigits);
+        return formatMagnitude(parts[0], base, dest, mid, width > 0 ? width - lowDigits : 0);
+    }
+
+    // Repeated in-place division of the 32-bit magnitude by INT_CHUNK_RADIX
+    private static int formatLinear(BigInteger value, int base, char[] dest, int end, int width) {
+        int pos = end;
+        if (value.bitLength() < 63) {
+            long v = value.longValue();
+            while (v != 0) {
+                dest[--pos] = DIGIT_CHARS[(int) (v % base)];
+                v /= base;
+            }
+        } else {
+            int[] words = toWords(value);
+            int perChunk = INT_CHUNK_DIGITS[base];
+            long radix = INT_CHUNK_RADIX[base];
+            int top = 0;
+            while (top < words.length) {
+                long rem = 0;
+                for (int i = top; i < words.length; i++) {
+                    long cur = (rem << 32) | (words[i] & 0xffffffffL);
+                    words[i] = (int) (cur / radix);
+                    rem = cur % radix;
+                }
+                while (top < words.length && words[top] == 0) {
+                    top++;
+                }
+                int chunkEnd = pos - perChunk;
+                while (rem != 0) {
+                    dest[--pos] = DIGIT_CHARS[(int) (rem % base)];
+                    rem /= base;
+                }
+                // Inner chunks keep their leading zeros
+                if (top < words.length) {
+                    while (pos > chunkEnd) {
+                        dest[--pos] = '0';
+                    }
+                }
+            }
+        }
+
+        if (width > 0) {
+            while (pos > end - width) {
+                dest[--pos] = '0';
+            }
+        } else if (pos == end) {
+            dest[--pos] = '0';
+        }
+        return pos;
+    }
+
+    // Big-endian 32-bit words of a non-negative value
+    private static int[] toWords(BigInteger value) {
+        byte[] bytes = value.toByteArray();
+        int[] words = new int[(bytes.length + 3) / 4];
+        for (int i = bytes.length - 1, w = words.length - 1, shift = 0; i >= 0; i--) {
+            words[w] |= (bytes[i] & 0xff) << shift;
+            shift += 8;
+            if (shift == 32) {
+                shift = 0;
+                w--;
+            }
+        }
+        return words;
+    }
+
+    // CHUNK_RADIX[base]^(2^level)
+    static BigInteger power(int base, int level) {
+        synchronized (POWERS) {
+            BigInteger[] powers = POWERS[base];
+            if (level >= powers.length) {
+                BigInteger[] grown = Arrays.copyOf(powers, level + 1);
+                for (int i = powers.length; i <= level; i++) {
+                    grown[i] = grown[i - 1].multiply(grown[i - 1]);
+                }
+                POWERS[base] = grown;
+                powers = grown;
+            }
+            return powers[level];
+        }
+    }
+
+    static long unsignedMultiplyHigh(long a, long b) {
+        return Math.multiplyHigh(a, b) + ((a >> 63) & b) + ((b >> 63) & a);
+    }
+}
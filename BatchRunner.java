@@ -0,0 +1,230 @@
+import java.io.*;
+import java.math.BigInteger;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.*;
+
+// Batch reconstruction: many share files, one JVM.
+//
+// Takes a directory (every *.json, or binary *.ssb, in it) or a manifest (one path
+// per line, '#' comments, relative paths resolved against the manifest's directory).
+// Files are parsed and reconstructed on a ForkJoinPool and one JSON line per input is
+// written as each finishes. A failing file produces an "error" line instead of stopping the
+// batch. Lagrange weights are shared across files through a WeightCache, so files
+// with the same x's only pay for the dot product. With stats on, every line carries
+// its ReconstructionStats and the batch keeps their total.
+public class BatchRunner {
+
+    private final int threads;
+    private final BigInteger prime;
+    private final boolean stats;
+    private final ReconstructionStats totals = ReconstructionStats.total("batch");
+    private final AtomicInteger failures = new AtomicInteger();
+    // Share files in a batch usually reuse the same x's
+    private final WeightCache weights = new WeightCache();
+
+    public BatchRunner(int threads, BigInteger prime) {
+        this(threads, prime, false);
+    }
+
+    public BatchRunner(int threads, BigInteger prime, boolean stats) {
+        if (prime != null) {
+            Lagrange.checkPrime(prime);
+        }
+        this.threads = threads;
+        this.prime = prime;
+        this.stats = stats;
+    }
+
+    // Phase totals over the files run so far with stats on
+    public ReconstructionStats totals() {
+        return totals;
+    }
+
+    // Lists the files of a directory or manifest
+    public static List<Path> inputs(Path source) throws IOException {
+        if (Files.isDirectory(source)) {
+            try (Stream<Path> files = Files.list(source)) {
+                return files.filter(p -> p.getFileName().toString().endsWith(".json")
+                                      || p.getFileName().toString().endsWith(".ssb"))
+                            .sorted()
+                            .collect(Collectors.toList());
+            }
+        }
+
+        Path dir = source.toAbsolutePath().getParent();
+        List<Path> files = new ArrayList<>();
+        for (String line : Files.readAllLines(source)) {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) continue;
+            files.add(dir.resolve(line));
+        }
+        return files;
+    }
+
+    // Runs every file and writes one JSON line each; returns the number that failed
+    public int run(List<Path> files, ResultWriter out) throws IOException, InterruptedException {
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        failures.set(0);
+        try {
+            CompletionService<String> done = new ExecutorCompletionService<>(pool);
+            for (Path file : files) {
+                done.submit(() -> reconstruct(file));
+            }
+
+            for (int i = 0; i < files.size(); i++) {
+                try {
+                    out.print(done.take().get()).println();
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException(e.getCause());
+                }
+            }
+            out.flush();
+            return failures.get();
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    // One file to one JSON line; exceptions become an error line
+    String reconstruct(Path file) {
+        StringBuilder line = new StringBuilder(128);
+        line.append("{\"file\":");
+        appendString(line, file.toString());
+        try {
+            long start = System.nanoTime();
+            ReconstructionStats run = ReconstructionStats.start(file.toString(), stats);
+            ShareSet shares = ShareReader.read(file.toString(), true, run);
+            appendResult(line, shares, start, run);
+            if (run != null) {
+                run.finish();
+                if (stats) {
+                    line.append(",\"stats\":");
+                    run.appendJson(line);
+                    totals.add(run);
+                }
+            }
+        } catch (Exception e) {
+            failures.incrementAndGet();
+            line.append(",\"error\":");
+            appendString(line, e.getClass().getSimpleName() + ": " + e.getMessage());
+        }
+        return line.append('}').toString();
+    }
+
+    // Appends k, the x's, the prime, the secret and the timings of shares parsed
+    // since start; ShamirServer answers with the same fields
+    void appendResult(StringBuilder line, ShareSet shares, long start) {
+        appendResult(line, shares, start, null);
+    }
+
+    // As above, charging the interpolation and the line to stats when it is not null
+    void appendResult(StringBuilder line, ShareSet shares, long start, ReconstructionStats stats) {
+        long parsed = System.nanoTime();
+        if (stats != null) {
+            stats.enter(ReconstructionStats.INTERPOLATE);
+            stats.count(ReconstructionStats.INTERPOLATE, 0, shares.size());
+        }
+
+        BigInteger p = prime != null ? prime : shares.prime;
+        String secret;
+        if (p != null) {
+            if (prime == null) {
+                // Files and requests mostly name the same few primes
+                Lagrange.checkKnownPrime(p);
+            }
+            secret = weights.atZeroMod(shares.xs, shares.ys, p, stats).toString();
+        } else {
+            BigInteger[] fraction = Lagrange.reduce(weights.atZero(shares.xs, shares.ys, stats));
+            secret = fraction[1].equals(BigInteger.ONE)
+                    ? fraction[0].toString()
+                    : fraction[0] + "/" + fraction[1];
+        }
+        long solved = System.nanoTime();
+        if (stats != null) {
+            stats.enter(ReconstructionStats.OUTPUT);
+            stats.count(ReconstructionStats.OUTPUT, 0, shares.size());
+        }
+
+        line.append(",\"k\":").append(shares.size());
+        line.append(",\"x\":[");
+        for (int i = 0; i < shares.size(); i++) {
+            if (i > 0) line.append(',');
+            line.append(shares.xs[i]);
+        }
+        line.append(']');
+        if (p != null) {
+            line.append(",\"prime\":\"").append(p).append('"');
+        }
+        line.append(",\"secret\":\"").append(secret).append('"');
+        line.append(",\"parseMicros\":").append((parsed - start) / 1000);
+        line.append(",\"solveMicros\":").append((solved - parsed) / 1000);
+    }
+
+    static void appendString(StringBuilder sb, String s) {
+        sb.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '"' || c == '\\') {
+                sb.append('\\').append(c);
+            } else if (c < 0x20) {
+                sb.append(String.format("\\u%04x", (int) c));
+            } else {
+                sb.append(c);
+            }
+        }
+        sb.append('"');
+    }
+
+    public static void main(String[] args) {
+        String source = null;
+        String outFile = null;
+        String primeArg = null;
+        boolean stats = false;
+        int threads = Runtime.getRuntime().availableProcessors();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--threads") && i + 1 < args.length) {
+                threads = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--out") && i + 1 < args.length) {
+                outFile = args[++i];
+            } else if (args[i].equals("--prime") && i + 1 < args.length) {
+                primeArg = args[++i];
+            } else if (args[i].equals("--stats")) {
+                stats = true;
+            } else if (source == null && !args[i].startsWith("--")) {
+                source = args[i];
+            } else {
+                source = null;
+                break;
+            }
+        }
+        if (source == null) {
+            System.err.println("Usage: java BatchRunner [--threads <n>] [--prime <p>] [--out <file.jsonl>] [--stats] <dir|manifest>");
+            System.exit(1);
+        }
+
+        try {
+            List<Path> files = inputs(Paths.get(source));
+            BigInteger prime = primeArg != null ? new BigInteger(primeArg) : null;
+            OutputStream stream = outFile != null ? new FileOutputStream(outFile) : System.out;
+            ResultWriter out = new ResultWriter(stream);
+
+            long start = System.nanoTime();
+            BatchRunner runner = new BatchRunner(threads, prime, stats);
+            int failed = runner.run(files, out);
+            if (outFile != null) out.close();
+
+            System.err.printf("%d files, %d failed, %.1f ms%n",
+                    files.size(), failed, (System.nanoTime() - start) / 1e6);
+            if (stats) {
+                System.err.println(runner.totals().toJson());
+            }
+        } catch (Exception e) {
+            System.err.println("Error: " + e.getMessage());
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+}
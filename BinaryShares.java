@@ -0,0 +1,248 @@
+import java.io.*;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.Arrays;
+
+// Binary share files: the magnitudes themselves instead of base-N digit strings.
+//
+//   "SSB1"                      magic
+//   varint n + 1, varint k + 1  0 when the source had no keys.n / keys.k
+//   varint m, m bytes           the modulus, big-endian; m = 0 when there is none
+//   then per share until the end of the file:
+//   varint x, varint len, len bytes   y as an unsigned big-endian magnitude
+//
+// Varints are unsigned LEB128 (7 bits per byte, low group first). read maps the file
+// and walks it once for the x's and the offsets of the magnitudes, then builds
+// BigIntegers only for the shares it keeps, straight from the mapped bytes; nothing
+// is decoded as text. ShareReader.read(String, boolean) sends files starting with
+// the magic here, so every reader of share files takes either format. The base each
+// value was written in is not kept: JSON written back out uses one base throughout.
+public final class BinaryShares {
+
+    private static final byte[] MAGIC = { 'S', 'S', 'B', '1' };
+
+    private BinaryShares() {
+    }
+
+    // true when the file starts with the binary magic
+    public static boolean isBinary(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer head = ByteBuffer.allocate(MAGIC.length);
+            while (head.hasRemaining()) {
+                if (channel.read(head) < 0) return false;
+            }
+            return Arrays.equals(head.array(), MAGIC);
+        }
+    }
+
+    public static ShareSet read(Path file, boolean selectK) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return read(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), selectK);
+        }
+    }
+
+    // Reads all shares, or only the k with the smallest x when selectK is set
+    public static ShareSet read(ByteBuffer buffer, boolean selectK) {
+        ByteBuffer in = buffer.slice();
+        for (byte b : MAGIC) {
+            if (!in.hasRemaining() || in.get() != b) {
+                throw new IllegalArgumentException("Not a binary share file");
+            }
+        }
+        int n = (int) readVarint(in) - 1;
+        int k = (int) readVarint(in) - 1;
+        int modulusLength = length(in);
+        BigInteger prime = modulusLength > 0 ? magnitude(in, in.position(), modulusLength) : null;
+        in.position(in.position() + modulusLength);
+        if (selectK && k < 0) {
+            throw new IllegalArgumentException("Share file must contain k");
+        }
+
+        // Pass over the records: x, and where each magnitude starts and ends
+        long[] xs = new long[16];
+        int[] offsets = new int[16];
+        int[] lengths = new int[16];
+        int count = 0;
+        boolean sorted = true;
+        while (in.hasRemaining()) {
+            if (count == xs.length) {
+                xs = Arrays.copyOf(xs, count * 2);
+                offsets = Arrays.copyOf(offsets, count * 2);
+                lengths = Arrays.copyOf(lengths, count * 2);
+            }
+            xs[count] = readVarint(in);
+            lengths[count] = length(in);
+            offsets[count] = in.position();
+            in.position(in.position() + lengths[count]);
+            if (count > 0 && xs[count] < xs[count - 1]) {
+                sorted = false;
+            }
+            count++;
+        }
+
+        // The writer emits ascending x; anything else is put in order first
+        Integer[] order = null;
+        if (!sorted) {
+            order = new Integer[count];
+            for (int i = 0; i < count; i++) {
+                order[i] = i;
+            }
+            long[] keys = xs;
+            Arrays.sort(order, (a, b) -> Long.compare(keys[a], keys[b]));
+        }
+
+        int size = selectK ? Math.min(k, count) : count;
+        BigInteger[] outX = new BigInteger[size];
+        BigInteger[] outY = new BigInteger[size];
+        for (int i = 0; i < size; i++) {
+            int r = order != null ? order[i] : i;
+            outX[i] = BigInteger.valueOf(xs[r]);
+            outY[i] = magnitude(in, offsets[r], lengths[r]);
+        }
+        return new ShareSet(n, k, prime, outX, outY, new byte[size]);
+    }
+
+    public static void write(ShareSet shares, OutputStream stream) throws IOException {
+        OutputStream out = new BufferedOutputStream(stream, 1 << 16);
+        out.write(MAGIC);
+        writeVarint(out, shares.n + 1L);
+        writeVarint(out, shares.k + 1L);
+        writeMagnitude(out, shares.prime != null ? shares.prime : BigInteger.ZERO);
+        for (int i = 0; i < shares.size(); i++) {
+            BigInteger x = shares.xs[i];
+            if (x.signum() < 0 || x.bitLength() > 63) {
+                throw new IllegalArgumentException("x out of range for the binary format: " + x);
+            }
+            writeVarint(out, x.longValue());
+            writeMagnitude(out, shares.ys[i]);
+        }
+        out.flush();
+    }
+
+    // JSON in the keys/base/value layout; values in their recorded base, else in base
+    public static void writeJson(ShareSet shares, OutputStream stream, int base) throws IOException {
+        ResultWriter out = new ResultWriter(stream);
+        out.print("{\n  \"keys\": {");
+        String separator = "\n    ";
+        if (shares.n >= 0) {
+            out.print(separator).print("\"n\": ").print(shares.n);
+            separator = ",\n    ";
+        }
+        if (shares.k >= 0) {
+            out.print(separator).print("\"k\": ").print(shares.k);
+            separator = ",\n    ";
+        }
+        if (shares.prime != null) {
+            out.print(separator).print("\"prime\": \"").print(shares.prime).print('"');
+        }
+        out.print("\n  }");
+        for (int i = 0; i < shares.size(); i++) {
+            int b = shares.bases[i] != 0 ? shares.bases[i] : base;
+            out.print(",\n  \"").print(shares.xs[i]).print("\": {\n    \"base\": \"").print(b);
+            out.print("\",\n    \"value\": \"").print(shares.ys[i], b).print("\"\n  }");
+        }
+        out.print("\n}\n").flush();
+    }
+
+    private static BigInteger magnitude(ByteBuffer in, int offset, int length) {
+        if (length == 0) {
+            return BigInteger.ZERO;
+        }
+        if (in.hasArray()) {
+            return new BigInteger(1, in.array(), in.arrayOffset() + offset, length);
+        }
+        byte[] bytes = new byte[length];
+        in.get(offset, bytes);
+        return new BigInteger(1, bytes);
+    }
+
+    private static void writeMagnitude(OutputStream out, BigInteger value) throws IOException {
+        if (value.signum() < 0) {
+            throw new IllegalArgumentException("Negative values cannot be stored: " + value);
+        }
+        byte[] bytes = value.toByteArray();
+        // toByteArray leads with a sign byte when the top bit is set
+        int skip = bytes[0] == 0 ? 1 : 0;
+        writeVarint(out, bytes.length - skip);
+        out.write(bytes, skip, bytes.length - skip);
+    }
+
+    private static int length(ByteBuffer in) {
+        long length = readVarint(in);
+        if (length > in.remaining()) {
+            throw new IllegalArgumentException("Truncated share file");
+        }
+        return (int) length;
+    }
+
+    static long readVarint(ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            if (!in.hasRemaining()) {
+                throw new IllegalArgumentException("Truncated share file");
+            }
+            byte b = in.get();
+            value |= (long) (b & 0x7f) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Varint longer than 64 bits");
+    }
+
+    static void writeVarint(OutputStream out, long value) throws IOException {
+        while ((value & ~0x7fL) != 0) {
+            out.write((int) (value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    public static void main(String[] args) {
+        String usage = "Usage: java BinaryShares --to-binary <in.json> <out.ssb>\n"
+                     + "       java BinaryShares --to-json [--base <b>] <in.ssb> <out.json>";
+        String mode = null;
+        int base = 10;
+        String[] files = new String[2];
+        int fileCount = 0;
+        boolean valid = true;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--to-binary") || args[i].equals("--to-json")) {
+                mode = args[i];
+            } else if (args[i].equals("--base") && i + 1 < args.length) {
+                base = Integer.parseInt(args[++i]);
+            } else if (fileCount < 2 && !args[i].startsWith("--")) {
+                files[fileCount++] = args[i];
+            } else {
+                valid = false;
+                break;
+            }
+        }
+        if (!valid || mode == null || fileCount != 2) {
+            System.err.println(usage);
+            System.exit(1);
+        }
+
+        try {
+            long start = System.nanoTime();
+            ShareSet shares = ShareReader.readMapped(files[0], false,
+                    Runtime.getRuntime().availableProcessors(), null);
+            try (OutputStream out = new FileOutputStream(files[1])) {
+                if (mode.equals("--to-binary")) {
+                    write(shares, out);
+                } else {
+                    writeJson(shares, out, base);
+                }
+            }
+            System.err.printf("%d shares, %d -> %d bytes, %.1f ms%n", shares.size(),
+                    Files.size(Paths.get(files[0])), Files.size(Paths.get(files[1])),
+                    (System.nanoTime() - start) / 1e6);
+        } catch (Exception e) {
+            System.err.println("Error: " + e.getMessage());
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+}
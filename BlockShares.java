@@ -0,0 +1,172 @@
+import java.io.*;
+import java.math.BigInteger;
+import java.security.SecureRandom;
+import java.util.Random;
+
+// Shares of many secrets over one x-set, held as columns: a large secret cut into
+// BigInteger-sized blocks, each block shared at the same x's with the same k.
+//
+// The JSON layout is the keys/base/value one with a "values" array in place of
+// "value", block b of every share at index b, all in the share's base:
+//   { "keys": { "n": 4, "k": 3, "blocks": 2 },
+//     "1": { "base": "16", "values": ["1f03", "e2"] }, ... }
+// keys.blocks is optional; every share must carry the same number of values.
+// columns[b][i] is block b of the share at xs[i], so reconstructing a block walks one
+// contiguous array next to the weights (ColumnLagrange).
+public final class BlockShares {
+
+    public final int n;
+    public final int k;
+    public final BigInteger prime;
+    public final BigInteger[] xs;
+    public final byte[] bases;
+    public final BigInteger[][] columns;
+
+    public BlockShares(int n, int k, BigInteger prime, BigInteger[] xs, byte[] bases, BigInteger[][] columns) {
+        if (xs.length != bases.length) {
+            throw new IllegalArgumentException("Share arrays differ in length");
+        }
+        for (BigInteger[] column : columns) {
+            if (column.length != xs.length) {
+                throw new IllegalArgumentException("Expected " + xs.length + " values per block, got " + column.length);
+            }
+        }
+        this.n = n;
+        this.k = k;
+        this.prime = prime;
+        this.xs = xs;
+        this.bases = bases;
+        this.columns = columns;
+    }
+
+    public int size() {
+        return xs.length;
+    }
+
+    public int blocks() {
+        return columns.length;
+    }
+
+    // Block b as an ordinary share set
+    public ShareSet column(int b) {
+        return new ShareSet(n, k, prime, xs, columns[b], bases);
+    }
+
+    // Shares x = 1..n of every secret, each block on its own random polynomial;
+    // bits sizes the coefficients when there is no prime, as in ShamirSplit
+    public static BlockShares split(BigInteger[] secrets, int k, int n, BigInteger prime, int bits, Random random) {
+        if (n < k) {
+            throw new IllegalArgumentException("Need n >= k, got n = " + n + ", k = " + k);
+        }
+        BigInteger[] xs = new BigInteger[n];
+        for (int i = 0; i < n; i++) {
+            xs[i] = BigInteger.valueOf(i + 1);
+        }
+        BigInteger[][] columns = new BigInteger[secrets.length][n];
+        for (int b = 0; b < secrets.length; b++) {
+            ShamirSplit polynomial = new ShamirSplit(secrets[b], k, prime, bits, random);
+            for (int i = 0; i < n; i++) {
+                columns[b][i] = polynomial.evaluate(i + 1);
+            }
+        }
+        return new BlockShares(n, k, prime, xs, new byte[n], columns);
+    }
+
+    // The JSON layout above; values in their recorded base, else in base
+    public void writeJson(OutputStream stream, int base) throws IOException {
+        ResultWriter out = new ResultWriter(stream);
+        out.print("{\n  \"keys\": {");
+        if (n >= 0) {
+            out.print("\n    \"n\": ").print(n).print(',');
+        }
+        if (k >= 0) {
+            out.print("\n    \"k\": ").print(k).print(',');
+        }
+        if (prime != null) {
+            out.print("\n    \"prime\": \"").print(prime).print("\",");
+        }
+        out.print("\n    \"blocks\": ").print(columns.length).print("\n  }");
+        for (int i = 0; i < xs.length; i++) {
+            int b = bases[i] != 0 ? bases[i] : base;
+            out.print(",\n  \"").print(xs[i]).print("\": {\n    \"base\": \"").print(b);
+            out.print("\",\n    \"values\": [");
+            for (int c = 0; c < columns.length; c++) {
+                out.print(c == 0 ? "\"" : ", \"").print(columns[c][i], b).print('"');
+            }
+            out.print("]\n  }");
+        }
+        out.print("\n}\n").flush();
+    }
+
+    public static void main(String[] args) {
+        String secretsArg = null;
+        String primeArg = null;
+        String outFile = null;
+        int randomBlocks = -1;
+        int k = -1;
+        int n = -1;
+        int base = 10;
+        int bits = 256;
+        boolean valid = true;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--secrets") && i + 1 < args.length) {
+                secretsArg = args[++i];
+            } else if (args[i].equals("--random") && i + 1 < args.length) {
+                randomBlocks = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--k") && i + 1 < args.length) {
+                k = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--n") && i + 1 < args.length) {
+                n = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--prime") && i + 1 < args.length) {
+                primeArg = args[++i];
+            } else if (args[i].equals("--base") && i + 1 < args.length) {
+                base = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--bits") && i + 1 < args.length) {
+                bits = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--out") && i + 1 < args.length) {
+                outFile = args[++i];
+            } else {
+                valid = false;
+                break;
+            }
+        }
+        if (!valid || (secretsArg == null) == (randomBlocks < 0) || k < 1 || n < 0) {
+            System.err.println("Usage: java BlockShares (--secrets <s1,s2,...> | --random <blocks>) --k <k> --n <n> "
+                    + "[--prime <p>] [--base <b>] [--bits <b>] [--out <file.json>]");
+            System.exit(1);
+        }
+
+        try {
+            BigInteger prime = primeArg != null ? new BigInteger(primeArg) : null;
+            Random random = new SecureRandom();
+            BigInteger[] secrets;
+            if (secretsArg != null) {
+                String[] parts = secretsArg.split(",");
+                secrets = new BigInteger[parts.length];
+                for (int b = 0; b < parts.length; b++) {
+                    secrets[b] = new BigInteger(parts[b].trim());
+                }
+            } else {
+                // Random blocks print to stderr so the shares can be checked
+                secrets = new BigInteger[randomBlocks];
+                for (int b = 0; b < randomBlocks; b++) {
+                    secrets[b] = prime != null
+                            ? new BigInteger(prime.bitLength() - 1, random)
+                            : new BigInteger(bits, random);
+                    System.err.println(secrets[b]);
+                }
+            }
+
+            long start = System.nanoTime();
+            BlockShares shares = split(secrets, k, n, prime, bits, random);
+            OutputStream out = outFile != null ? new BufferedOutputStream(new FileOutputStream(outFile)) : System.out;
+            shares.writeJson(out, base);
+            if (outFile != null) out.close();
+            System.err.printf("%d shares of %d blocks, %.1f ms%n", n, secrets.length, (System.nanoTime() - start) / 1e6);
+        } catch (Exception e) {
+            System.err.println("Error: " + e.getMessage());
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,209 @@
+import java.io.*;
+import java.math.BigInteger;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// f(0) of every block of a BlockShares set from one set of Lagrange weights.
+//
+// All blocks share the x-set, so the weights w_i (WeightCache) are computed or looked
+// up once and permuted to the share order once; each block is then the dot product
+// sum_i w_i * y_i over its column, O(k) multiplications, reduced over the common
+// denominator or mod p. Columns are contiguous arrays walked in step with the
+// weights. For p < 2^63 the weights are put in Montgomery form up front
+// (PrimeField64), so a block costs k word multiplications with no BigInteger
+// arithmetic beyond reading its y's. The blocks are split in halves over a
+// ForkJoinPool down to a few ranges per worker; each block is written by exactly
+// one task, so the results need no merging.
+public final class ColumnLagrange {
+
+    // Below this many terms (blocks * k) the blocks are not worth handing to a pool
+    static final long PARALLEL_TERMS = 1 << 14;
+
+    // Aim for this many block ranges per worker so uneven ranges balance out
+    private static final int RANGES_PER_THREAD = 4;
+
+    private ColumnLagrange() {
+    }
+
+    // {numerator, denominator} of f(0) for every block, reduced, the denominator
+    // positive; over GF(p) the denominator is 1. prime, when not null, overrides
+    // keys.prime; pool may be null to stay on the calling thread.
+    public static BigInteger[][] atZero(BlockShares shares, BigInteger prime, WeightCache cache, ForkJoinPool pool) {
+        return atZero(shares.xs, shares.columns, prime != null ? prime : shares.prime, cache, pool);
+    }
+
+    public static BigInteger[][] atZero(BigInteger[] xs, BigInteger[][] columns, BigInteger p,
+                                        WeightCache cache, ForkJoinPool pool) {
+        int blocks = columns.length;
+        BigInteger[][] secrets = new BigInteger[blocks][];
+        if (blocks == 0) {
+            return secrets;
+        }
+        if (xs.length == 0) {
+            throw new IllegalArgumentException("No shares to reconstruct from");
+        }
+        for (BigInteger[] column : columns) {
+            if (column.length != xs.length) {
+                throw new IllegalArgumentException("Expected " + xs.length + " values per block, got " + column.length);
+            }
+        }
+
+        Engine engine = new Engine(cache.weights(xs, p).inOrder(xs), columns, p, secrets);
+        if (pool == null || blocks < 2 || (long) blocks * xs.length < PARALLEL_TERMS) {
+            engine.solve(0, blocks);
+        } else {
+            int grain = Math.max(1, blocks / (pool.getParallelism() * RANGES_PER_THREAD));
+            pool.invoke(new Blocks(engine, 0, blocks, grain));
+        }
+        return secrets;
+    }
+
+    // Dot products for a range of blocks; read-only apart from each block's own slot
+    private static final class Engine {
+        private final BigInteger[] w;
+        private final BigInteger[][] columns;
+        private final BigInteger p;
+        private final BigInteger[][] secrets;
+        private final PrimeField64 field;
+        // w_i * 2^64 mod p, so that a Montgomery product with a plain y_i is w_i y_i
+        private final long[] montgomery;
+
+        Engine(BigInteger[] w, BigInteger[][] columns, BigInteger p, BigInteger[][] secrets) {
+            this.w = w;
+            this.columns = columns;
+            this.p = p;
+            this.secrets = secrets;
+            if (p != null && PrimeField64.fits(p)) {
+                field = new PrimeField64(p.longValueExact());
+                montgomery = new long[columns[0].length];
+                for (int i = 0; i < montgomery.length; i++) {
+                    montgomery[i] = field.toMontgomery(w[i].longValueExact());
+                }
+            } else {
+                field = null;
+                montgomery = null;
+            }
+        }
+
+        void solve(int from, int to) {
+            int k = columns[0].length;
+            for (int b = from; b < to; b++) {
+                BigInteger[] ys = columns[b];
+                if (field != null) {
+                    long modulus = field.modulus();
+                    long sum = 0;
+                    for (int i = 0; i < k; i++) {
+                        BigInteger y = ys[i];
+                        long yi = y.signum() >= 0 && y.bitLength() < 64
+                                ? y.longValue() % modulus
+                                : y.mod(p).longValue();
+                        sum = field.add(sum, field.multiply(montgomery[i], yi));
+                    }
+                    secrets[b] = new BigInteger[] { BigInteger.valueOf(sum), BigInteger.ONE };
+                    continue;
+                }
+
+                BigInteger sum = BigInteger.ZERO;
+                for (int i = 0; i < k; i++) {
+                    if (ys[i].signum() != 0) {
+                        sum = sum.add(w[i].multiply(ys[i]));
+                    }
+                }
+                if (p != null) {
+                    secrets[b] = new BigInteger[] { sum.mod(p), BigInteger.ONE };
+                } else {
+                    BigInteger denominator = w[k];
+                    if (denominator.signum() < 0) {
+                        sum = sum.negate();
+                        denominator = denominator.negate();
+                    }
+                    secrets[b] = Lagrange.reduce(new BigInteger[] { sum, denominator });
+                }
+            }
+        }
+    }
+
+    @SuppressWarnings("serial")
+    private static final class Blocks extends RecursiveAction {
+        private final Engine engine;
+        private final int from;
+        private final int to;
+        private final int grain;
+
+        Blocks(Engine engine, int from, int to, int grain) {
+            this.engine = engine;
+            this.from = from;
+            this.to = to;
+            this.grain = grain;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= grain) {
+                engine.solve(from, to);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new Blocks(engine, from, mid, grain), new Blocks(engine, mid, to, grain));
+        }
+    }
+
+    public static void main(String[] args) {
+        String file = null;
+        String primeArg = null;
+        int outBase = 10;
+        int threads = Runtime.getRuntime().availableProcessors();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--threads") && i + 1 < args.length) {
+                threads = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--prime") && i + 1 < args.length) {
+                primeArg = args[++i];
+            } else if (args[i].equals("--out-base") && i + 1 < args.length) {
+                outBase = Integer.parseInt(args[++i]);
+            } else if (file == null && !args[i].startsWith("--")) {
+                file = args[i];
+            } else {
+                file = null;
+                break;
+            }
+        }
+        if (file == null || threads < 1) {
+            System.err.println("Usage: java ColumnLagrange [--threads <n>] [--prime <p>] [--out-base <b>] <blocks.json>");
+            System.exit(1);
+        }
+
+        ForkJoinPool pool = threads > 1 ? new ForkJoinPool(threads) : null;
+        try {
+            long start = System.nanoTime();
+            BlockShares shares = ShareReader.readBlocks(file, true);
+            long parsed = System.nanoTime();
+            BigInteger prime = primeArg != null ? new BigInteger(primeArg) : shares.prime;
+            if (prime != null) {
+                Lagrange.checkPrime(prime);
+            }
+            BigInteger[][] secrets = atZero(shares.xs, shares.columns, prime, new WeightCache(1), pool);
+            long solved = System.nanoTime();
+
+            // One line per block, in block order; fractions as numerator/denominator
+            ResultWriter out = new ResultWriter(System.out);
+            for (BigInteger[] secret : secrets) {
+                out.print(secret[0], outBase);
+                if (!secret[1].equals(BigInteger.ONE)) {
+                    out.print('/').print(secret[1], outBase);
+                }
+                out.println();
+            }
+            out.flush();
+            System.err.printf("%d blocks from %d shares: parse %.1f ms, interpolate %.1f ms%n",
+                    secrets.length, shares.size(), (parsed - start) / 1e6, (solved - parsed) / 1e6);
+        } catch (Exception e) {
+            System.err.println("Error: " + e.getMessage());
+            e.printStackTrace();
+            System.exit(1);
+        } finally {
+            if (pool != null) {
+                pool.shutdown();
+            }
+        }
+    }
+}
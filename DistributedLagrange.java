@@ -0,0 +1,284 @@
+import java.io.*;
+import java.math.BigInteger;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+// Lagrange interpolation at x = 0 spread over ShamirWorker processes.
+//
+// The terms of f(0) are independent given the full x-set and M0 = prod_j (0 - xj),
+// as in ParallelLagrange. The coordinator cuts the k terms into one contiguous slice
+// per worker and sends each worker every x, M0 and only its slice's y's; the worker
+// sums its terms (on its own ForkJoinPool) and answers with one partial fraction,
+// or one partial sum mod p. The partial fractions are added over the lcm of their
+// denominators and reduced once, so the result is exactly that of Lagrange.atZero.
+// Requests go out to every worker before any answer is read, so the slices are
+// worked on at the same time; connections stay open between calls. Every answer
+// is read before a failure is thrown, so no reply is left queued behind the next
+// request; a connection that breaks partway through (or answers out of frame) is
+// closed and reopened for the next call.
+//
+// The wire format is big-endian (DataOutputStream), integers as a length and their
+// two's-complement bytes:
+//   request:  int MAGIC, byte mode (0 rational, 1 mod p), [p], M0, int k, k x's,
+//             int from, int to, the y's of [from, to)
+//   response: byte 0, numerator, denominator   or   byte 1, UTF error message
+// Worker addresses are "port", "host:port" or a Unix-domain socket path.
+public final class DistributedLagrange implements Closeable {
+
+    static final int MAGIC = 0x53535731; // "SSW1"
+    static final byte RATIONAL = 0;
+    static final byte MOD_P = 1;
+    static final byte OK = 0;
+    static final byte FAILED = 1;
+
+    private final List<String> addresses;
+    private final List<SocketChannel> channels = new ArrayList<>();
+    private final List<DataInputStream> inputs = new ArrayList<>();
+    private final List<DataOutputStream> outputs = new ArrayList<>();
+
+    public DistributedLagrange(List<String> workers) throws IOException {
+        if (workers.isEmpty()) {
+            throw new IllegalArgumentException("No workers given");
+        }
+        this.addresses = new ArrayList<>(workers);
+        try {
+            for (String worker : workers) {
+                channels.add(null);
+                inputs.add(null);
+                outputs.add(null);
+                connect(channels.size() - 1);
+            }
+        } catch (IOException e) {
+            close();
+            throw e;
+        }
+    }
+
+    // Opens (or reopens) the connection to worker w
+    private void connect(int w) throws IOException {
+        SocketAddress address = address(addresses.get(w));
+        SocketChannel channel = address instanceof UnixDomainSocketAddress
+                ? SocketChannel.open(StandardProtocolFamily.UNIX)
+                : SocketChannel.open();
+        try {
+            channel.connect(address);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        channels.set(w, channel);
+        inputs.set(w, new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel), 1 << 16)));
+        outputs.set(w, new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16)));
+    }
+
+    // Drops a connection whose stream is no longer in step with its worker and tries
+    // once to open a fresh one; if that fails too the next call fails on this worker
+    // and tries again
+    private void reconnect(int w, IOException cause) {
+        try {
+            channels.get(w).close();
+        } catch (IOException e) {
+            // replacing it anyway
+        }
+        try {
+            connect(w);
+        } catch (IOException e) {
+            cause.addSuppressed(e);
+        }
+    }
+
+    // "port" and "host:port" are TCP; anything with a '/' is a Unix-domain socket
+    static SocketAddress address(String worker) {
+        if (worker.indexOf('/') >= 0) {
+            return UnixDomainSocketAddress.of(Paths.get(worker));
+        }
+        int colon = worker.lastIndexOf(':');
+        if (colon < 0) {
+            return new InetSocketAddress("localhost", Integer.parseInt(worker));
+        }
+        return new InetSocketAddress(worker.substring(0, colon), Integer.parseInt(worker.substring(colon + 1)));
+    }
+
+    public int workers() {
+        return channels.size();
+    }
+
+    // {numerator, denominator} of f(0), reduced, the denominator positive
+    public synchronized BigInteger[] atZero(BigInteger[] xs, BigInteger[] ys) throws IOException {
+        int k = checkLengths(xs, ys);
+        if (k == 0) {
+            return new BigInteger[] { BigInteger.ZERO, BigInteger.ONE };
+        }
+        ParallelLagrange.checkDistinct(xs);
+        for (int i = 0; i < k; i++) {
+            if (xs[i].signum() == 0) {
+                return new BigInteger[] { ys[i], BigInteger.ONE };
+            }
+        }
+
+        BigInteger[] negated = new BigInteger[k];
+        for (int i = 0; i < k; i++) {
+            negated[i] = xs[i].negate();
+        }
+        BigInteger m0 = Lagrange.product(negated, 0, k);
+
+        BigInteger[] sum = { BigInteger.ZERO, BigInteger.ONE };
+        for (BigInteger[] partial : exchange(RATIONAL, null, m0, xs, ys)) {
+            sum = ParallelLagrange.add(sum, partial);
+        }
+        return Lagrange.reduce(sum);
+    }
+
+    // f(0) mod p; p must be prime (checked here, as the workers invert mod p)
+    public synchronized BigInteger atZeroMod(BigInteger[] xs, BigInteger[] ys, BigInteger p) throws IOException {
+        int k = checkLengths(xs, ys);
+        Lagrange.checkPrime(p);
+        if (k == 0) {
+            return BigInteger.ZERO;
+        }
+        BigInteger[] x = new BigInteger[k];
+        for (int i = 0; i < k; i++) {
+            x[i] = xs[i].mod(p);
+        }
+        ParallelLagrange.checkDistinctMod(x);
+        for (int i = 0; i < k; i++) {
+            if (x[i].signum() == 0) {
+                return ys[i].mod(p);
+            }
+        }
+
+        BigInteger m0 = BigInteger.ONE;
+        for (int i = 0; i < k; i++) {
+            m0 = m0.multiply(p.subtract(x[i])).mod(p);
+        }
+
+        BigInteger sum = BigInteger.ZERO;
+        for (BigInteger[] partial : exchange(MOD_P, p, m0, x, ys)) {
+            sum = sum.add(partial[0]);
+        }
+        return sum.mod(p);
+    }
+
+    // Sends one slice to each worker (fewer when k is smaller than the worker count),
+    // then reads back every answer that is owed before throwing the first failure
+    private BigInteger[][] exchange(byte mode, BigInteger p, BigInteger m0, BigInteger[] xs, BigInteger[] ys)
+            throws IOException {
+        if (outputs.isEmpty()) {
+            throw new IOException("Closed");
+        }
+        int k = xs.length;
+        int used = Math.min(k, outputs.size());
+        IOException failure = null;
+        int sent = 0;
+        for (; sent < used; sent++) {
+            int from = (int) ((long) k * sent / used);
+            int to = (int) ((long) k * (sent + 1) / used);
+            try {
+                send(outputs.get(sent), mode, p, m0, xs, ys, from, to);
+            } catch (IOException e) {
+                // Stop here; the workers already sent to still have to be read
+                reconnect(sent, e);
+                failure = e;
+                break;
+            }
+        }
+
+        BigInteger[][] partials = new BigInteger[sent][];
+        for (int w = 0; w < sent; w++) {
+            try {
+                partials[w] = receive(w);
+            } catch (IOException e) {
+                if (failure == null) {
+                    failure = e;
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        return partials;
+    }
+
+    private static void send(DataOutputStream out, byte mode, BigInteger p, BigInteger m0,
+                             BigInteger[] xs, BigInteger[] ys, int from, int to) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeByte(mode);
+        if (mode == MOD_P) {
+            writeBig(out, p);
+        }
+        writeBig(out, m0);
+        out.writeInt(xs.length);
+        for (BigInteger x : xs) {
+            writeBig(out, x);
+        }
+        out.writeInt(from);
+        out.writeInt(to);
+        for (int i = from; i < to; i++) {
+            writeBig(out, ys[i]);
+        }
+        out.flush();
+    }
+
+    // A worker's error answer leaves the connection usable; a broken or garbled one
+    // does not, and is reopened
+    private BigInteger[] receive(int w) throws IOException {
+        DataInputStream in = inputs.get(w);
+        String error;
+        try {
+            if (in.readByte() == OK) {
+                return new BigInteger[] { readBig(in), readBig(in) };
+            }
+            error = in.readUTF();
+        } catch (IOException e) {
+            IOException failure = new IOException("Worker " + addresses.get(w) + ": " + e, e);
+            reconnect(w, failure);
+            throw failure;
+        }
+        throw new IOException("Worker " + addresses.get(w) + ": " + error);
+    }
+
+    private static int checkLengths(BigInteger[] xs, BigInteger[] ys) {
+        if (ys.length != xs.length) {
+            throw new IllegalArgumentException("Expected " + xs.length + " y-values, got " + ys.length);
+        }
+        return xs.length;
+    }
+
+    static void writeBig(DataOutputStream out, BigInteger value) throws IOException {
+        byte[] bytes = value.toByteArray();
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    static BigInteger readBig(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length <= 0 || length > ShamirServer.MAX_REQUEST) {
+            throw new IOException("Bad integer length " + length);
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new BigInteger(bytes);
+    }
+
+    @Override
+    public synchronized void close() {
+        for (SocketChannel channel : channels) {
+            if (channel == null) continue;
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // closing anyway
+            }
+        }
+        channels.clear();
+        inputs.clear();
+        outputs.clear();
+    }
+}
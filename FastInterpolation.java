@@ -0,0 +1,301 @@
+import java.math.BigInteger;
+import java.util.Arrays;
+
+// Quasi-linear f(0) over GF(p) for large thresholds, with subproduct trees.
+//
+// With M(x) = prod_j (x - xj), the Lagrange weight of share i at 0 is
+//   w_i = prod_{j != i} (0 - xj) / (xi - xj) = M(0) / ((0 - xi) * M'(xi))
+// so the k denominators are M' evaluated at every xi. The product tree of the
+// (x - xi) gives M, and M' is then pushed down the same tree as a scaled remainder
+// tree (Bernstein) until each leaf holds M'(xi). The per-share terms are inverted
+// together and, since only f(0) is wanted, the recombination up the tree collapses to
+// the dot product sum w_i * y_i.
+//
+// Polynomials are multiplied by Kronecker substitution: the coefficients are packed
+// into one big integer with enough bits per slot that no carries cross, multiplied
+// (BigInteger Karatsuba/Toom-Cook for small operands, Ntt once they are long enough
+// for Toom-Cook's n^1.47 to dominate), and unpacked. The only division is one
+// Newton-iterated series inverse at the root, so both trees cost O(M(k) log k)
+// instead of the O(k^2) products of Lagrange.weightsMod.
+//
+// Over the rationals the coefficients of M grow to about k log k bits each, so the
+// tree holds Theta(k^2 log k) bits whatever the multiplication; Lagrange.atZero
+// stays the rational path.
+public final class FastInterpolation {
+
+    // Smallest k worth the trees. The tree's Kronecker operands grow with the size of
+    // p, the quadratic loop's cost much less so, and FastInterpolationBenchmark puts
+    // the break-even near 10 k per bit of p (~700 for a 127-bit p, ~2500 for 255 bits,
+    // ~5000 for 521 bits on one core of the reference box).
+    public static int crossover(BigInteger p) {
+        return Math.max(256, 10 * p.bitLength());
+    }
+
+    // Polynomials this short are multiplied schoolbook
+    private static final int SCHOOLBOOK = 32;
+
+    // Kronecker products with at least this many base-2^16 digits in the shorter
+    // operand go through Ntt rather than BigInteger.multiply
+    private static final int NTT_DIGITS = 1 << 12;
+
+    private FastInterpolation() {
+    }
+
+    // f(0) mod p through the subproduct tree, whatever k is
+    public static BigInteger atZeroMod(BigInteger[] xs, BigInteger[] ys, BigInteger p) {
+        int k = xs.length;
+        if (ys.length != k) {
+            throw new IllegalArgumentException("Expected " + k + " y-values, got " + ys.length);
+        }
+        BigInteger[] w = weightsMod(xs, p);
+        BigInteger sum = BigInteger.ZERO;
+        for (int i = 0; i < k; i++) {
+            sum = sum.add(w[i].multiply(ys[i]));
+        }
+        return sum.mod(p);
+    }
+
+    // The same weights as Lagrange.weightsMod, in O(M(k) log k)
+    public static BigInteger[] weightsMod(BigInteger[] xs, BigInteger p) {
+        int k = xs.length;
+        if (k == 0) {
+            return new BigInteger[0];
+        }
+        BigInteger[] x = new BigInteger[k];
+        for (int i = 0; i < k; i++) {
+            x[i] = xs[i].mod(p);
+        }
+
+        BigInteger[][][] tree = productTree(x, p);
+        BigInteger[] m = tree[tree.length - 1][0];
+        BigInteger[] derivative = new BigInteger[k];
+        for (int i = 1; i <= k; i++) {
+            derivative[i - 1] = m[i].multiply(BigInteger.valueOf(i)).mod(p);
+        }
+        BigInteger[] values = evaluate(tree, derivative, p);
+
+        for (int i = 0; i < k; i++) {
+            if (values[i].signum() == 0) {
+                throw new ArithmeticException("Division by zero: x-coordinates collide mod p");
+            }
+        }
+
+        // A share at x = 0 is f(0) itself
+        BigInteger[] w = new BigInteger[k];
+        for (int i = 0; i < k; i++) {
+            if (x[i].signum() == 0) {
+                Arrays.fill(w, BigInteger.ZERO);
+                w[i] = BigInteger.ONE;
+                return w;
+            }
+        }
+
+        // w_i = M(0) / (-xi * M'(xi))
+        BigInteger[] dens = new BigInteger[k];
+        for (int i = 0; i < k; i++) {
+            dens[i] = p.subtract(x[i]).multiply(values[i]).mod(p);
+        }
+        BigInteger[] inverses = Lagrange.batchInverse(dens, p);
+        for (int i = 0; i < k; i++) {
+            w[i] = m[0].multiply(inverses[i]).mod(p);
+        }
+        return w;
+    }
+
+    // tree[0][i] = x - xi, tree[l][i] = tree[l-1][2i] * tree[l-1][2i+1] (an odd one
+    // out is carried up unchanged); the last level holds M alone
+    static BigInteger[][][] productTree(BigInteger[] x, BigInteger p) {
+        int depth = 1;
+        for (int width = x.length; width > 1; width = (width + 1) / 2) {
+            depth++;
+        }
+        BigInteger[][][] tree = new BigInteger[depth][][];
+        tree[0] = new BigInteger[x.length][];
+        for (int i = 0; i < x.length; i++) {
+            tree[0][i] = new BigInteger[] { x[i].signum() == 0 ? BigInteger.ZERO : p.subtract(x[i]), BigInteger.ONE };
+        }
+        for (int l = 1; l < depth; l++) {
+            BigInteger[][] below = tree[l - 1];
+            BigInteger[][] level = new BigInteger[(below.length + 1) / 2][];
+            for (int i = 0; i < level.length; i++) {
+                level[i] = 2 * i + 1 < below.length
+                        ? multiply(below[2 * i], below[2 * i + 1], p)
+                        : below[2 * i];
+            }
+            tree[l] = level;
+        }
+        return tree;
+    }
+
+    // f(xi) at every leaf for deg f < k, by a scaled remainder tree: each node P
+    // carries the first deg P coefficients (in 1/x) of (f mod P) / P. The root's come
+    // from one power series inversion of M; a child A of P = A * B gets its own as a
+    // slice of that series times B, a middle product, so no node is divided. At a
+    // leaf x - xi the single coefficient is f(xi).
+    static BigInteger[] evaluate(BigInteger[][][] tree, BigInteger[] f, BigInteger p) {
+        BigInteger[] m = tree[tree.length - 1][0];
+        int k = m.length - 1;
+
+        // With z = 1/x: f / M = z * rev(f)(z) / rev(M)(z), rev(M)(0) = 1
+        BigInteger[] revF = new BigInteger[k];
+        for (int i = 0; i < k; i++) {
+            revF[i] = i < f.length ? f[k - 1 - i] : BigInteger.ZERO;
+        }
+        BigInteger[] revM = new BigInteger[k];
+        for (int i = 0; i < k; i++) {
+            revM[i] = m[k - i];
+        }
+        BigInteger[][] current = { truncate(multiply(revF, inverse(revM, k, p), p), k) };
+
+        for (int l = tree.length - 2; l >= 0; l--) {
+            BigInteger[][] level = tree[l];
+            BigInteger[][] next = new BigInteger[level.length][];
+            for (int i = 0; i < level.length; i++) {
+                BigInteger[] series = current[i / 2];
+                int sibling = i ^ 1;
+                if (sibling >= level.length) {
+                    // Carried up unchanged: same polynomial, same series
+                    next[i] = series;
+                } else {
+                    next[i] = middle(series, level[sibling], level[i].length - 1, p);
+                }
+            }
+            current = next;
+        }
+        BigInteger[] values = new BigInteger[current.length];
+        for (int i = 0; i < current.length; i++) {
+            values[i] = current[i][0];
+        }
+        return values;
+    }
+
+    // c[t] = sum_j b[j] * u[t + j] for t < count: coefficients b..b+count-1 of
+    // rev(b) * u
+    private static BigInteger[] middle(BigInteger[] u, BigInteger[] b, int count, BigInteger p) {
+        int db = b.length - 1;
+        BigInteger[] revB = new BigInteger[b.length];
+        for (int j = 0; j <= db; j++) {
+            revB[j] = b[db - j];
+        }
+        BigInteger[] product = multiply(revB, u, p);
+        return Arrays.copyOfRange(product, db, db + count);
+    }
+
+    // Bits of the widest product the trees form for k shares: the packed halves
+    // multiplied into M at the root
+    static long rootProductBits(int k, BigInteger p) {
+        int half = k / 2 + 1;
+        int slot = 2 * p.bitLength() + 33 - Integer.numberOfLeadingZeros(half);
+        return (long) (k + 1) * slot;
+    }
+
+    // --- polynomials over GF(p): little-endian coefficients in [0, p) ---
+
+    static BigInteger[] multiply(BigInteger[] a, BigInteger[] b, BigInteger p) {
+        if (Math.min(a.length, b.length) <= SCHOOLBOOK) {
+            BigInteger[] result = new BigInteger[a.length + b.length - 1];
+            Arrays.fill(result, BigInteger.ZERO);
+            for (int i = 0; i < a.length; i++) {
+                if (a[i].signum() == 0) continue;
+                for (int j = 0; j < b.length; j++) {
+                    result[i + j] = result[i + j].add(a[i].multiply(b[j]));
+                }
+            }
+            for (int i = 0; i < result.length; i++) {
+                result[i] = result[i].mod(p);
+            }
+            return result;
+        }
+
+        // Each product coefficient is below min(len) * p^2, so it fits the slot
+        int slot = 2 * p.bitLength() + 33 - Integer.numberOfLeadingZeros(Math.min(a.length, b.length));
+        int count = a.length + b.length - 1;
+        int slotDigits = (slot + 15) >>> 4;
+        if ((long) Math.min(a.length, b.length) * slotDigits >= NTT_DIGITS
+                && (long) count * slotDigits <= Ntt.MAX_LENGTH / 2) {
+            int[] da = packDigits(a, slotDigits);
+            int[] db = packDigits(b, slotDigits);
+            return unpackDigits(Ntt.multiply(da, da.length, db, db.length), slotDigits, count, p);
+        }
+        int slotBytes = (slot + 7) >>> 3;
+        BigInteger product = pack(a, slotBytes).multiply(pack(b, slotBytes));
+        return unpack(product, slotBytes, count, p);
+    }
+
+    // sum a[i] * 2^(8 * slotBytes * i), written straight into a big-endian byte array
+    private static BigInteger pack(BigInteger[] a, int slotBytes) {
+        byte[] bytes = new byte[a.length * slotBytes + 1];
+        for (int i = 0; i < a.length; i++) {
+            byte[] c = a[i].toByteArray();
+            int skip = c[0] == 0 ? 1 : 0;
+            int end = bytes.length - i * slotBytes;
+            System.arraycopy(c, skip, bytes, end - (c.length - skip), c.length - skip);
+        }
+        return new BigInteger(bytes);
+    }
+
+    private static BigInteger[] unpack(BigInteger value, int slotBytes, int count, BigInteger p) {
+        byte[] bytes = value.toByteArray();
+        BigInteger[] result = new BigInteger[count];
+        for (int i = 0; i < count; i++) {
+            int end = bytes.length - i * slotBytes;
+            int start = Math.max(end - slotBytes, 0);
+            result[i] = end <= 0 ? BigInteger.ZERO : new BigInteger(1, bytes, start, end - start).mod(p);
+        }
+        return result;
+    }
+
+    // The same packing as little-endian base-2^16 digits for Ntt
+    private static int[] packDigits(BigInteger[] a, int slotDigits) {
+        int[] digits = new int[a.length * slotDigits];
+        for (int i = 0; i < a.length; i++) {
+            byte[] c = a[i].toByteArray();
+            int at = i * slotDigits;
+            for (int j = c.length - 1, shift = 0; j >= 0; j--, shift += 8) {
+                digits[at + (shift >>> 4)] |= (c[j] & 0xff) << (shift & 15);
+            }
+        }
+        return digits;
+    }
+
+    private static BigInteger[] unpackDigits(int[] digits, int slotDigits, int count, BigInteger p) {
+        BigInteger[] result = new BigInteger[count];
+        byte[] bytes = new byte[2 * slotDigits];
+        for (int i = 0; i < count; i++) {
+            int at = i * slotDigits;
+            for (int j = 0; j < slotDigits; j++) {
+                int d = digits[at + j];
+                bytes[bytes.length - 1 - 2 * j] = (byte) d;
+                bytes[bytes.length - 2 - 2 * j] = (byte) (d >>> 8);
+            }
+            result[i] = new BigInteger(1, bytes).mod(p);
+        }
+        return result;
+    }
+
+    // f^-1 mod x^n for f[0] = 1, by Newton iteration g <- g (2 - f g)
+    private static BigInteger[] inverse(BigInteger[] f, int n, BigInteger p) {
+        BigInteger[] g = { BigInteger.ONE };
+        for (int length = 1; length < n; ) {
+            length = Math.min(2 * length, n);
+            BigInteger[] fg = truncate(multiply(truncate(f, length), g, p), length);
+            for (int i = 0; i < fg.length; i++) {
+                fg[i] = fg[i].signum() == 0 ? BigInteger.ZERO : p.subtract(fg[i]);
+            }
+            fg[0] = fg[0].add(BigInteger.TWO).mod(p);
+            g = truncate(multiply(g, fg, p), length);
+        }
+        return g;
+    }
+
+    private static BigInteger[] truncate(BigInteger[] f, int length) {
+        if (f.length == length) {
+            return f;
+        }
+        BigInteger[] result = Arrays.copyOf(f, length);
+        for (int i = f.length; i < length; i++) {
+            result[i] = BigInteger.ZERO;
+        }
+        return result;
+    }
+}
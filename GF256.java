@@ -0,0 +1,75 @@
+// Arithmetic in GF(2^8) = GF(2)[x] / (x^8 + x^4 + x^3 + x + 1), the AES field.
+//
+// Addition is XOR. Products go through log/exp tables over the generator 3; EXP is
+// doubled in length so log a + log b indexes it without a reduction. Bulk loops
+// multiply by one fixed constant at a time, so row(c) expands c into its 256-entry
+// product table and the inner loop is a single lookup per byte.
+final class GF256 {
+
+    private static final int[] LOG = new int[256];
+    private static final int[] EXP = new int[510];
+
+    static {
+        int v = 1;
+        for (int i = 0; i < 255; i++) {
+            EXP[i] = v;
+            EXP[i + 255] = v;
+            LOG[v] = i;
+            // v * 3 = v * x + v
+            int doubled = v << 1;
+            if ((doubled & 0x100) != 0) {
+                doubled ^= 0x11b;
+            }
+            v = doubled ^ v;
+        }
+    }
+
+    private GF256() {
+    }
+
+    static int multiply(int a, int b) {
+        if (a == 0 || b == 0) {
+            return 0;
+        }
+        return EXP[LOG[a] + LOG[b]];
+    }
+
+    static int divide(int a, int b) {
+        if (b == 0) {
+            throw new ArithmeticException("Division by zero in GF(256)");
+        }
+        if (a == 0) {
+            return 0;
+        }
+        return EXP[LOG[a] + 255 - LOG[b]];
+    }
+
+    // row[v] = c * v for every byte v
+    static byte[] row(int c) {
+        byte[] row = new byte[256];
+        if (c != 0) {
+            int logC = LOG[c];
+            for (int v = 1; v < 256; v++) {
+                row[v] = (byte) EXP[logC + LOG[v]];
+            }
+        }
+        return row;
+    }
+
+    // Lagrange weights at 0: w_i = prod_{j != i} x_j / (x_j - x_i), subtraction being XOR
+    static int[] weightsAtZero(int[] xs) {
+        int k = xs.length;
+        int[] w = new int[k];
+        for (int i = 0; i < k; i++) {
+            int num = 1;
+            int den = 1;
+            for (int j = 0; j < k; j++) {
+                if (j == i) continue;
+                num = multiply(num, xs[j]);
+                den = multiply(den, xs[j] ^ xs[i]);
+            }
+            w[i] = divide(num, den);
+        }
+        return w;
+    }
+}
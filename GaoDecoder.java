@@ -0,0 +1,283 @@
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Error-correcting reconstruction with Gao's Reed-Solomon decoder.
+//
+// With n shares of a degree k - 1 polynomial, up to (n - k) / 2 inconsistent shares
+// are located and skipped in O(n^2) field operations instead of searching subsets:
+//   g0 = prod (x - xi), g1 = the polynomial through all n shares,
+//   run the extended Euclidean algorithm on (g0, g1) until deg r < (n + k) / 2,
+//   then f = r / v, where v is the error locator; f fails to divide exactly when
+//   there are too many bad shares.
+//
+// Over GF(p) this runs directly. Over the rationals the shares are decoded modulo a
+// random prime wider than the x-coordinates, the secret is recomputed exactly from k
+// shares that decoded as good, and the remaining good shares are checked exactly
+// against it; a check that fails (a prime dividing some difference) retries with a
+// fresh prime.
+public final class GaoDecoder {
+
+    private static final int ATTEMPTS = 4;
+
+    private GaoDecoder() {
+    }
+
+    // Outcome of a robust reconstruction
+    public static final class Result {
+        // {numerator, denominator}, reduced; the denominator is 1 over GF(p)
+        public final BigInteger[] secret;
+        // Indices of shares that disagree with the decoded polynomial, ascending
+        public final int[] inconsistent;
+        // Indices of the k shares the secret was computed from, ascending
+        public final int[] selected;
+
+        Result(BigInteger[] secret, int[] inconsistent, int[] selected) {
+            this.secret = secret;
+            this.inconsistent = inconsistent;
+            this.selected = selected;
+        }
+    }
+
+    // Reconstructs f(0) from shares sorted by x, tolerating up to (n - k) / 2 bad
+    // ones; prime may be null for rational shares
+    public static Result reconstruct(BigInteger[] xs, BigInteger[] ys, int k, BigInteger prime) {
+        int n = xs.length;
+        if (ys.length != n) {
+            throw new IllegalArgumentException("Expected " + n + " y-values, got " + ys.length);
+        }
+        if (k < 1 || n < k) {
+            throw new IllegalArgumentException("Need at least k = " + k + " shares, got " + n);
+        }
+
+        if (prime != null) {
+            BigInteger[] f = decode(xs, ys, k, prime);
+            int[] bad = mismatches(f, xs, ys, prime);
+            return new Result(new BigInteger[] { f[0], BigInteger.ONE }, bad, firstGood(bad, n, k));
+        }
+
+        int bits = 2;
+        for (BigInteger x : xs) {
+            bits = Math.max(bits, x.bitLength() + 2);
+        }
+        bits = Math.max(bits, 127);
+
+        for (int attempt = 0; attempt < ATTEMPTS; attempt++) {
+            BigInteger p = BigInteger.probablePrime(bits, ThreadLocalRandom.current());
+            int[] bad = mismatches(decode(xs, ys, k, p), xs, ys, p);
+            int[] selected = firstGood(bad, n, k);
+
+            BigInteger[] sx = new BigInteger[k];
+            BigInteger[] sy = new BigInteger[k];
+            for (int i = 0; i < k; i++) {
+                sx[i] = xs[selected[i]];
+                sy[i] = ys[selected[i]];
+            }
+            if (consistent(sx, sy, xs, ys, bad, selected)) {
+                return new Result(Lagrange.reduce(Lagrange.atZero(sx, sy)), bad, selected);
+            }
+        }
+        throw new ArithmeticException("Decoding did not verify over the rationals");
+    }
+
+    // Coefficients f[0..k-1] of the polynomial agreeing with all but at most
+    // (n - k) / 2 shares, mod p
+    static BigInteger[] decode(BigInteger[] xs, BigInteger[] ys, int k, BigInteger p) {
+        int n = xs.length;
+        BigInteger[] x = new BigInteger[n];
+        BigInteger[] y = new BigInteger[n];
+        for (int i = 0; i < n; i++) {
+            x[i] = xs[i].mod(p);
+            y[i] = ys[i].mod(p);
+        }
+
+        BigInteger[] g0 = { BigInteger.ONE };
+        for (int i = 0; i < n; i++) {
+            g0 = mulLinear(g0, x[i], p);
+        }
+        BigInteger[] g1 = interpolate(x, y, p);
+
+        // Partial extended Euclid: r = u*g0 + v*g1 with deg r < (n + k) / 2
+        BigInteger[] rPrev = g0;
+        BigInteger[] r = g1;
+        BigInteger[] vPrev = { BigInteger.ZERO };
+        BigInteger[] v = { BigInteger.ONE };
+        while (2 * degree(r) >= n + k) {
+            BigInteger[][] qr = divide(rPrev, r, p);
+            rPrev = r;
+            r = qr[1];
+            BigInteger[] next = subtract(vPrev, multiply(qr[0], v, p), p);
+            vPrev = v;
+            v = next;
+        }
+
+        BigInteger[][] fr = divide(r, v, p);
+        if (degree(fr[1]) >= 0 || degree(fr[0]) >= k) {
+            throw new IllegalArgumentException("More than " + (n - k) / 2
+                    + " inconsistent shares; cannot recover the polynomial");
+        }
+        return Arrays.copyOf(fr[0], k, BigInteger[].class);
+    }
+
+    // Indices whose y differs from f(x) mod p
+    static int[] mismatches(BigInteger[] f, BigInteger[] xs, BigInteger[] ys, BigInteger p) {
+        int[] bad = new int[xs.length];
+        int count = 0;
+        for (int i = 0; i < xs.length; i++) {
+            if (!evaluate(f, xs[i].mod(p), p).equals(ys[i].mod(p))) {
+                bad[count++] = i;
+            }
+        }
+        return Arrays.copyOf(bad, count);
+    }
+
+    private static int[] firstGood(int[] bad, int n, int k) {
+        int[] selected = new int[k];
+        int s = 0;
+        for (int i = 0, b = 0; i < n && s < k; i++) {
+            if (b < bad.length && bad[b] == i) {
+                b++;
+            } else {
+                selected[s++] = i;
+            }
+        }
+        return selected;
+    }
+
+    // Exact check that every good share outside the selection lies on the rational
+    // interpolant of the selection: f(t) is f(0) of the points shifted by -t
+    private static boolean consistent(BigInteger[] sx, BigInteger[] sy, BigInteger[] xs, BigInteger[] ys,
+                                      int[] bad, int[] selected) {
+        int k = sx.length;
+        BigInteger[] shifted = new BigInteger[k];
+        for (int i = 0, b = 0, s = 0; i < xs.length; i++) {
+            if (b < bad.length && bad[b] == i) {
+                b++;
+                continue;
+            }
+            if (s < selected.length && selected[s] == i) {
+                s++;
+                continue;
+            }
+            for (int j = 0; j < k; j++) {
+                shifted[j] = sx[j].subtract(xs[i]);
+            }
+            BigInteger[] value = Lagrange.atZero(shifted, sy);
+            if (!value[0].equals(ys[i].multiply(value[1]))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // --- polynomials over GF(p), little-endian coefficient arrays ---
+
+    // Newton divided differences, then expanded to monomial form
+    static BigInteger[] interpolate(BigInteger[] x, BigInteger[] y, BigInteger p) {
+        int n = x.length;
+        BigInteger[] c = y.clone();
+        for (int level = 1; level < n; level++) {
+            BigInteger[] diffs = new BigInteger[n - level];
+            for (int i = n - 1; i >= level; i--) {
+                diffs[i - level] = x[i].subtract(x[i - level]).mod(p);
+            }
+            BigInteger[] inverses = Lagrange.batchInverse(diffs, p);
+            for (int i = n - 1; i >= level; i--) {
+                c[i] = c[i].subtract(c[i - 1]).multiply(inverses[i - level]).mod(p);
+            }
+        }
+
+        // Horner on the Newton form: f = c0 + (x - x0)(c1 + (x - x1)(c2 + ...))
+        BigInteger[] f = { c[n - 1] };
+        for (int i = n - 2; i >= 0; i--) {
+            f = mulLinear(f, x[i], p);
+            f[0] = f[0].add(c[i]).mod(p);
+        }
+        return f;
+    }
+
+    // a * (x - root)
+    static BigInteger[] mulLinear(BigInteger[] a, BigInteger root, BigInteger p) {
+        BigInteger[] result = new BigInteger[a.length + 1];
+        result[a.length] = a[a.length - 1];
+        for (int i = a.length - 1; i > 0; i--) {
+            result[i] = a[i - 1].subtract(root.multiply(a[i])).mod(p);
+        }
+        result[0] = root.multiply(a[0]).negate().mod(p);
+        return result;
+    }
+
+    static BigInteger[] multiply(BigInteger[] a, BigInteger[] b, BigInteger p) {
+        int da = degree(a);
+        int db = degree(b);
+        if (da < 0 || db < 0) {
+            return new BigInteger[] { BigInteger.ZERO };
+        }
+        BigInteger[] result = new BigInteger[da + db + 1];
+        Arrays.fill(result, BigInteger.ZERO);
+        for (int i = 0; i <= da; i++) {
+            if (a[i].signum() == 0) continue;
+            for (int j = 0; j <= db; j++) {
+                result[i + j] = result[i + j].add(a[i].multiply(b[j]));
+            }
+        }
+        for (int i = 0; i < result.length; i++) {
+            result[i] = result[i].mod(p);
+        }
+        return result;
+    }
+
+    static BigInteger[] subtract(BigInteger[] a, BigInteger[] b, BigInteger p) {
+        BigInteger[] result = new BigInteger[Math.max(a.length, b.length)];
+        for (int i = 0; i < result.length; i++) {
+            BigInteger ai = i < a.length ? a[i] : BigInteger.ZERO;
+            BigInteger bi = i < b.length ? b[i] : BigInteger.ZERO;
+            result[i] = ai.subtract(bi).mod(p);
+        }
+        return result;
+    }
+
+    // {quotient, remainder} of a / b
+    static BigInteger[][] divide(BigInteger[] a, BigInteger[] b, BigInteger p) {
+        int db = degree(b);
+        if (db < 0) {
+            throw new ArithmeticException("Division by zero polynomial");
+        }
+        int da = degree(a);
+        BigInteger[] rem = Arrays.copyOf(a, Math.max(da + 1, 1));
+        if (da < 0) {
+            rem[0] = BigInteger.ZERO;
+        }
+        if (da < db) {
+            return new BigInteger[][] { { BigInteger.ZERO }, rem };
+        }
+
+        BigInteger lead = b[db].modInverse(p);
+        BigInteger[] quotient = new BigInteger[da - db + 1];
+        for (int i = da - db; i >= 0; i--) {
+            BigInteger q = rem[i + db].multiply(lead).mod(p);
+            quotient[i] = q;
+            if (q.signum() == 0) continue;
+            for (int j = 0; j <= db; j++) {
+                rem[i + j] = rem[i + j].subtract(q.multiply(b[j])).mod(p);
+            }
+        }
+        return new BigInteger[][] { quotient, rem };
+    }
+
+    static BigInteger evaluate(BigInteger[] f, BigInteger x, BigInteger p) {
+        BigInteger result = BigInteger.ZERO;
+        for (int i = f.length - 1; i >= 0; i--) {
+            result = result.multiply(x).add(f[i]).mod(p);
+        }
+        return result;
+    }
+
+    // Index of the highest non-zero coefficient, -1 for the zero polynomial
+    static int degree(BigInteger[] f) {
+        for (int i = f.length - 1; i >= 0; i--) {
+            if (f[i].signum() != 0) return i;
+        }
+        return -1;
+    }
+}
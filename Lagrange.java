@@ -0,0 +1,313 @@
+import java.math.BigInteger;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Integer-only Lagrange interpolation at x = 0.
+//
+// f(0) = sum_i y_i * prod_{j != i} (0 - xj) / (xi - xj)
+//
+// Every term is kept as a plain numerator/denominator product with no gcd in the
+// inner loop; the k - 1 denominator factors are multiplied as a balanced tree so the
+// big operands stay similar in size. The terms are then brought over the least
+// common multiple of their denominators (one gcd per term). The weights depend on the
+// x's alone, so f(0) is also their dot product with the y's; WeightCache keeps them
+// for x-sets that repeat, while one-off calls sum the terms directly. The caller
+// reduces the result once.
+//
+// atZeroMod is the prime-field variant: everything stays below the modulus and the k
+// denominators are inverted together with one modInverse (Montgomery's trick). Primes
+// below 2^63 go to PrimeField64 on primitive longs; for larger ones, from
+// FastInterpolation.crossover(p) shares on it hands over to the subproduct-tree engine.
+public final class Lagrange {
+
+    // Moduli that already passed checkKnownPrime; cleared when this many are held
+    private static final int KNOWN_PRIMES = 64;
+    private static final Set<BigInteger> knownPrimes = ConcurrentHashMap.newKeySet();
+
+    // Runs of at most this many terms are summed in order; longer ones are halved and
+    // the halves added, which keeps the operands of each addition of similar size
+    private static final int TERMS_LEAF = 32;
+
+    private Lagrange() {
+    }
+
+    // Returns {numerator, denominator} of f(0); the denominator is positive but the
+    // pair is not reduced
+    public static BigInteger[] atZero(BigInteger[] xs, BigInteger[] ys) {
+        return atZero(xs, ys, null);
+    }
+
+    // As atZero, recording the widest term, partial sum and denominator into stats
+    // when it is not null.
+    //
+    // A one-off reconstruction sums the terms directly, as ParallelLagrange does on
+    // one thread: each numerator is M0 / (0 - xi) from the one product
+    // M0 = prod_j (0 - xj), and each term joins a running sum over the lcm of the
+    // denominators so far. weights() instead scales every numerator up to the final
+    // lcm, which is only worth its cost when WeightCache applies the weights again.
+    public static BigInteger[] atZero(BigInteger[] xs, BigInteger[] ys, ReconstructionStats stats) {
+        int k = xs.length;
+        if (ys.length != k) {
+            throw new IllegalArgumentException("Expected " + k + " y-values, got " + ys.length);
+        }
+        if (k == 0) {
+            return new BigInteger[] { BigInteger.ZERO, BigInteger.ONE };
+        }
+        ParallelLagrange.checkDistinct(xs);
+
+        // A share at x = 0 is f(0) itself; every other term has a zero numerator
+        for (int i = 0; i < k; i++) {
+            if (xs[i].signum() == 0) {
+                return new BigInteger[] { ys[i], BigInteger.ONE };
+            }
+        }
+
+        BigInteger[] negated = new BigInteger[k];
+        for (int i = 0; i < k; i++) {
+            negated[i] = xs[i].negate();
+        }
+        BigInteger[] sum = terms(xs, ys, product(negated, 0, k), 0, k, stats);
+        if (stats != null) {
+            stats.bits(sum[1]);
+        }
+        return sum;
+    }
+
+    // Unreduced sum of terms [from, to) given M0 = prod_j (0 - xj); the x's must be
+    // distinct and non-zero
+    static BigInteger[] terms(BigInteger[] xs, BigInteger[] ys, BigInteger m0, int from, int to,
+                              ReconstructionStats stats) {
+        if (to - from > TERMS_LEAF) {
+            int mid = (from + to) >>> 1;
+            BigInteger[] sum = ParallelLagrange.add(terms(xs, ys, m0, from, mid, stats),
+                                                    terms(xs, ys, m0, mid, to, stats));
+            if (stats != null) {
+                stats.bits(sum[0]);
+            }
+            return sum;
+        }
+        int k = xs.length;
+        BigInteger[] factors = new BigInteger[k - 1];
+        BigInteger[] sum = { BigInteger.ZERO, BigInteger.ONE };
+        for (int i = from; i < to; i++) {
+            if (ys[i].signum() == 0) continue;
+            BigInteger xi = xs[i];
+            int f = 0;
+            for (int j = 0; j < k; j++) {
+                if (j == i) continue;
+                factors[f++] = xi.subtract(xs[j]);
+            }
+            BigInteger den = product(factors, 0, f);
+            BigInteger num = ys[i].multiply(m0.divide(xi.negate()));
+            if (den.signum() < 0) {
+                num = num.negate();
+                den = den.negate();
+            }
+            sum = ParallelLagrange.add(sum, new BigInteger[] { num, den });
+            if (stats != null) {
+                stats.bits(num);
+                stats.bits(sum[0]);
+            }
+        }
+        return sum;
+    }
+
+    // Integer weights of f(0) = sum_i w[i] * y_i / w[k]: w[k] is the least common
+    // multiple of the k denominators (positive), w[i] the matching numerators
+    public static BigInteger[] weights(BigInteger[] xs) {
+        int k = xs.length;
+        BigInteger[] w = new BigInteger[k + 1];
+        w[k] = BigInteger.ONE;
+        if (k == 0) {
+            return w;
+        }
+
+        // suffix[i] = prod_{j >= i} (0 - xj), so prod_{j != i} (0 - xj) = prefix * suffix[i + 1]
+        BigInteger[] suffix = new BigInteger[k + 1];
+        suffix[k] = BigInteger.ONE;
+        for (int i = k - 1; i >= 0; i--) {
+            suffix[i] = suffix[i + 1].multiply(xs[i].negate());
+        }
+
+        BigInteger[] denominators = new BigInteger[k];
+        BigInteger[] factors = new BigInteger[k - 1];
+        BigInteger prefix = BigInteger.ONE;
+        BigInteger common = BigInteger.ONE;
+
+        for (int i = 0; i < k; i++) {
+            BigInteger xi = xs[i];
+            int f = 0;
+            for (int j = 0; j < k; j++) {
+                if (i == j) continue;
+                factors[f++] = xi.subtract(xs[j]);
+            }
+            BigInteger den = product(factors, 0, f);
+            if (den.signum() == 0) {
+                throw new ArithmeticException("Division by zero");
+            }
+
+            BigInteger num = prefix.multiply(suffix[i + 1]);
+            if (den.signum() < 0) {
+                num = num.negate();
+                den = den.negate();
+            }
+            w[i] = num;
+            denominators[i] = den;
+            prefix = prefix.multiply(xi.negate());
+            common = common.multiply(den.divide(common.gcd(den)));
+        }
+
+        for (int i = 0; i < k; i++) {
+            w[i] = w[i].multiply(common.divide(denominators[i]));
+        }
+        w[k] = common;
+        return w;
+    }
+
+    // Returns f(0) mod p for a prime p
+    public static BigInteger atZeroMod(BigInteger[] xs, BigInteger[] ys, BigInteger p) {
+        return atZeroMod(xs, ys, p, null);
+    }
+
+    // As atZeroMod, recording the widest intermediate into stats when it is not null
+    public static BigInteger atZeroMod(BigInteger[] xs, BigInteger[] ys, BigInteger p, ReconstructionStats stats) {
+        int k = xs.length;
+        if (ys.length != k) {
+            throw new IllegalArgumentException("Expected " + k + " y-values, got " + ys.length);
+        }
+        if (PrimeField64.fits(p)) {
+            if (stats != null) {
+                stats.bits(128);
+            }
+            return PrimeField64.atZeroMod(xs, ys, p);
+        }
+        if (k >= FastInterpolation.crossover(p)) {
+            if (stats != null) {
+                stats.bits(FastInterpolation.rootProductBits(k, p));
+            }
+            return FastInterpolation.atZeroMod(xs, ys, p);
+        }
+        BigInteger[] w = weightsMod(xs, p);
+        BigInteger sum = BigInteger.ZERO;
+        for (int i = 0; i < k; i++) {
+            sum = sum.add(w[i].multiply(ys[i]));
+        }
+        if (stats != null) {
+            // Every product in weightsMod is reduced at once, so the unreduced dot
+            // product is the widest value
+            stats.bits(sum);
+        }
+        return sum.mod(p);
+    }
+
+    // Weights of f(0) = sum_i w[i] * y_i mod p, each in [0, p)
+    public static BigInteger[] weightsMod(BigInteger[] xs, BigInteger p) {
+        int k = xs.length;
+        if (k == 0) {
+            return new BigInteger[0];
+        }
+
+        BigInteger[] x = new BigInteger[k];
+        for (int i = 0; i < k; i++) {
+            x[i] = xs[i].mod(p);
+        }
+
+        BigInteger[] suffix = new BigInteger[k + 1];
+        suffix[k] = BigInteger.ONE;
+        for (int i = k - 1; i >= 0; i--) {
+            suffix[i] = suffix[i + 1].multiply(p.subtract(x[i])).mod(p);
+        }
+
+        BigInteger[] numerators = new BigInteger[k];
+        BigInteger[] denominators = new BigInteger[k];
+        BigInteger prefix = BigInteger.ONE;
+        for (int i = 0; i < k; i++) {
+            BigInteger den = BigInteger.ONE;
+            for (int j = 0; j < k; j++) {
+                if (i == j) continue;
+                den = den.multiply(x[i].subtract(x[j])).mod(p);
+            }
+            if (den.signum() == 0) {
+                throw new ArithmeticException("Division by zero: x-coordinates collide mod p");
+            }
+            denominators[i] = den;
+            numerators[i] = prefix.multiply(suffix[i + 1]).mod(p);
+            prefix = prefix.multiply(p.subtract(x[i])).mod(p);
+        }
+
+        BigInteger[] inverses = batchInverse(denominators, p);
+        for (int i = 0; i < k; i++) {
+            numerators[i] = numerators[i].multiply(inverses[i]).mod(p);
+        }
+        return numerators;
+    }
+
+    // Rejects moduli that cannot define a prime field
+    public static void checkPrime(BigInteger p) {
+        if (p.compareTo(BigInteger.TWO) < 0 || !p.isProbablePrime(64)) {
+            throw new IllegalArgumentException("Modulus is not prime: " + p);
+        }
+    }
+
+    // As checkPrime, but a modulus that passed once is not tested again; for callers
+    // that see the same few keys.prime values on every share set
+    public static void checkKnownPrime(BigInteger p) {
+        if (knownPrimes.contains(p)) {
+            return;
+        }
+        checkPrime(p);
+        if (knownPrimes.size() >= KNOWN_PRIMES) {
+            knownPrimes.clear();
+        }
+        knownPrimes.add(p);
+    }
+
+    // Inverts every value mod p with a single modInverse: running prefix products
+    // forward, one inversion of the total, then peel each inverse off backwards
+    public static BigInteger[] batchInverse(BigInteger[] values, BigInteger p) {
+        int k = values.length;
+        BigInteger[] inverses = new BigInteger[k];
+        if (k == 0) {
+            return inverses;
+        }
+
+        BigInteger running = BigInteger.ONE;
+        for (int i = 0; i < k; i++) {
+            inverses[i] = running;
+            running = running.multiply(values[i]).mod(p);
+        }
+        if (running.signum() == 0) {
+            throw new ArithmeticException("Value not invertible mod " + p);
+        }
+
+        BigInteger inverse = running.modInverse(p);
+        for (int i = k - 1; i >= 0; i--) {
+            inverses[i] = inverses[i].multiply(inverse).mod(p);
+            inverse = inverse.multiply(values[i]).mod(p);
+        }
+        return inverses;
+    }
+
+    // Product of values[from, to), split in halves so both operands grow together
+    static BigInteger product(BigInteger[] values, int from, int to) {
+        if (to - from <= 16) {
+            BigInteger result = BigInteger.ONE;
+            for (int i = from; i < to; i++) {
+                result = result.multiply(values[i]);
+            }
+            return result;
+        }
+        int mid = (from + to) >>> 1;
+        return product(values, from, mid).multiply(product(values, mid, to));
+    }
+
+    // Reduces a {numerator, denominator} pair in place and returns it
+    public static BigInteger[] reduce(BigInteger[] fraction) {
+        BigInteger gcd = fraction[0].gcd(fraction[1]);
+        if (!gcd.equals(BigInteger.ONE) && gcd.signum() != 0) {
+            fraction[0] = fraction[0].divide(gcd);
+            fraction[1] = fraction[1].divide(gcd);
+        }
+        return fraction;
+    }
+}
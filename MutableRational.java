@@ -0,0 +1,143 @@
+import java.math.BigInteger;
+
+// A rational accumulator for hot loops: updated in place and reduced lazily.
+//
+// The immutable Fraction types normalize sign and gcd on every operation. Here each
+// update only cross-multiplies and keeps the denominator positive; the gcd is taken
+// when numerator or denominator passes a bit-length limit, and whenever the value is
+// read. After a reduction the limit moves to twice the reduced size (and never below
+// REDUCE_BITS), so operands that share no factors are not gcd'd over and over while
+// they grow. Reading always returns the fully reduced value, so results match the
+// eager Fraction arithmetic exactly. One instance can be reused across iterations
+// through set; it is not thread-safe.
+public final class MutableRational {
+
+    // Below this many bits a reduction is not worth its gcd
+    static final int REDUCE_BITS = 1024;
+
+    private BigInteger num = BigInteger.ZERO;
+    private BigInteger den = BigInteger.ONE;
+    private int limit = REDUCE_BITS;
+    private boolean reduced = true;
+
+    public MutableRational() {
+    }
+
+    public MutableRational(BigInteger num, BigInteger den) {
+        set(num, den);
+    }
+
+    public MutableRational set(BigInteger num, BigInteger den) {
+        if (den.signum() == 0) {
+            throw new ArithmeticException("Division by zero");
+        }
+        this.num = den.signum() < 0 ? num.negate() : num;
+        this.den = den.abs();
+        this.limit = REDUCE_BITS;
+        this.reduced = false;
+        return this;
+    }
+
+    public MutableRational set(BigInteger value) {
+        num = value;
+        den = BigInteger.ONE;
+        limit = REDUCE_BITS;
+        reduced = true;
+        return this;
+    }
+
+    // this += n / d
+    public MutableRational add(BigInteger n, BigInteger d) {
+        if (d.equals(den)) {
+            num = num.add(n);
+        } else if (d.equals(BigInteger.ONE)) {
+            num = num.add(n.multiply(den));
+        } else {
+            num = num.multiply(d).add(n.multiply(den));
+            den = den.multiply(d);
+        }
+        return changed(d.signum() < 0);
+    }
+
+    // this -= n / d
+    public MutableRational subtract(BigInteger n, BigInteger d) {
+        return add(n.negate(), d);
+    }
+
+    // this *= n / d
+    public MutableRational multiply(BigInteger n, BigInteger d) {
+        num = num.multiply(n);
+        if (!d.equals(BigInteger.ONE)) {
+            den = den.multiply(d);
+        }
+        return changed(d.signum() < 0);
+    }
+
+    public MutableRational multiply(BigInteger n) {
+        return multiply(n, BigInteger.ONE);
+    }
+
+    // this /= n / d
+    public MutableRational divide(BigInteger n, BigInteger d) {
+        if (n.signum() == 0) {
+            throw new ArithmeticException("Division by zero");
+        }
+        return multiply(d, n);
+    }
+
+    public MutableRational divide(BigInteger n) {
+        return divide(n, BigInteger.ONE);
+    }
+
+    // Reduced numerator; carries the sign
+    public BigInteger numerator() {
+        reduce();
+        return num;
+    }
+
+    // Reduced denominator, always positive
+    public BigInteger denominator() {
+        reduce();
+        return den;
+    }
+
+    // {numerator, denominator}, reduced
+    public BigInteger[] toArray() {
+        reduce();
+        return new BigInteger[] { num, den };
+    }
+
+    public MutableRational reduce() {
+        if (!reduced) {
+            BigInteger gcd = num.gcd(den);
+            if (gcd.signum() != 0 && !gcd.equals(BigInteger.ONE)) {
+                num = num.divide(gcd);
+                den = den.divide(gcd);
+            }
+            if (num.signum() == 0) {
+                den = BigInteger.ONE;
+            }
+            limit = Math.max(REDUCE_BITS, 2 * Math.max(num.bitLength(), den.bitLength()));
+            reduced = true;
+        }
+        return this;
+    }
+
+    private MutableRational changed(boolean negativeDenominator) {
+        if (negativeDenominator) {
+            num = num.negate();
+            den = den.negate();
+        }
+        reduced = false;
+        if (num.bitLength() > limit || den.bitLength() > limit) {
+            reduce();
+        }
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        reduce();
+        return den.equals(BigInteger.ONE) ? num.toString() : num + "/" + den;
+    }
+}
@@ -0,0 +1,252 @@
+import java.io.*;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+
+// Incremental reconstruction in Newton form for shares that arrive one at a time.
+//
+// The polynomial is kept as f(x) = c0 + c1 (x - x0) + c2 (x - x0)(x - x1) + ...,
+// where c_j = f[x0..xj] is the top divided difference. A new share (xm, ym) extends
+// it in O(m) steps without touching earlier shares:
+//   t0 = ym,  t_{j+1} = (t_j - c_j) / (xm - xj),  c_m = t_m
+// and f(0) moves by c_m * prod_{j < m} (0 - xj), with that product carried along.
+// Once k shares are in, f(0) is final; every later share is checked against the
+// polynomial by one Newton-Horner evaluation and is reported as consistent or not,
+// without changing the polynomial.
+//
+// Over GF(p) the m divisions of a step share one modInverse (Lagrange.batchInverse);
+// over the rationals the steps run in a reused MutableRational and f(0) accumulates in
+// another that is only reduced when it grows past its limit or is read.
+public final class NewtonReconstructor {
+
+    private final int k;
+    private final BigInteger prime;
+
+    // The first k shares (x reduced mod p in a prime field) and the c_j as fractions
+    private final BigInteger[] xs;
+    private final BigInteger[] cNum;
+    private final BigInteger[] cDen;
+    private int size;
+
+    // f(0) so far (sum over the rationals, secretNum over GF(p)), and
+    // prod_{j < size} (0 - xj)
+    private final MutableRational sum = new MutableRational();
+    private BigInteger secretNum = BigInteger.ZERO;
+    private BigInteger basis = BigInteger.ONE;
+    // Scratch for the divided differences of the share being added
+    private final MutableRational t = new MutableRational();
+
+    private final List<BigInteger> inconsistent = new ArrayList<>();
+    private int checked;
+
+    // Over the rationals
+    public NewtonReconstructor(int k) {
+        this(k, null);
+    }
+
+    // Over GF(prime), or the rationals when prime is null
+    public NewtonReconstructor(int k, BigInteger prime) {
+        if (k < 1) {
+            throw new IllegalArgumentException("Threshold k must be positive: " + k);
+        }
+        if (prime != null) {
+            Lagrange.checkPrime(prime);
+        }
+        this.k = k;
+        this.prime = prime;
+        this.xs = new BigInteger[k];
+        this.cNum = new BigInteger[k];
+        this.cDen = new BigInteger[k];
+    }
+
+    // Adds one share. The first k extend the polynomial; later ones are only checked.
+    // Returns false for a share that disagrees with the polynomial.
+    public boolean add(BigInteger x, BigInteger y) {
+        if (prime != null) {
+            x = x.mod(prime);
+            y = y.mod(prime);
+        }
+        if (size == k) {
+            checked++;
+            BigInteger value = evaluate(x);
+            if (value == null || !value.equals(y)) {
+                inconsistent.add(x);
+                return false;
+            }
+            return true;
+        }
+
+        int m = size;
+        for (int j = 0; j < m; j++) {
+            if (xs[j].equals(x)) {
+                throw new IllegalArgumentException("Duplicate share x = " + x);
+            }
+        }
+        if (prime != null) {
+            extendMod(m, x, y);
+        } else {
+            extend(m, x, y);
+        }
+        xs[m] = x;
+        size++;
+        return true;
+    }
+
+    private void extend(int m, BigInteger x, BigInteger y) {
+        // (t - c_j) / (x - x_j). The divided differences cancel heavily, so t is
+        // reduced every step: left to the size limit it ran 2.5x slower at k = 1000
+        t.set(y);
+        for (int j = 0; j < m; j++) {
+            t.subtract(cNum[j], cDen[j]).divide(x.subtract(xs[j])).reduce();
+        }
+        cNum[m] = t.numerator();
+        cDen[m] = t.denominator();
+
+        // secret += c_m * basis
+        sum.add(cNum[m].multiply(basis), cDen[m]);
+        basis = basis.multiply(x.negate());
+    }
+
+    private void extendMod(int m, BigInteger x, BigInteger y) {
+        BigInteger[] diffs = new BigInteger[m];
+        for (int j = 0; j < m; j++) {
+            diffs[j] = x.subtract(xs[j]).mod(prime);
+        }
+        BigInteger[] inverses = Lagrange.batchInverse(diffs, prime);
+
+        BigInteger t = y;
+        for (int j = 0; j < m; j++) {
+            t = t.subtract(cNum[j]).multiply(inverses[j]).mod(prime);
+        }
+        cNum[m] = t;
+        cDen[m] = BigInteger.ONE;
+
+        secretNum = secretNum.add(t.multiply(basis)).mod(prime);
+        basis = basis.multiply(prime.subtract(x)).mod(prime);
+    }
+
+    // Newton-Horner evaluation of the degree k - 1 polynomial; for the rationals the
+    // result is compared against an integer y, so a non-integer value comes back null
+    private BigInteger evaluate(BigInteger x) {
+        if (prime != null) {
+            BigInteger result = cNum[k - 1];
+            for (int j = k - 2; j >= 0; j--) {
+                result = result.multiply(x.subtract(xs[j])).add(cNum[j]).mod(prime);
+            }
+            return result;
+        }
+
+        BigInteger num = cNum[k - 1];
+        BigInteger den = cDen[k - 1];
+        for (int j = k - 2; j >= 0; j--) {
+            num = num.multiply(x.subtract(xs[j])).multiply(cDen[j]).add(cNum[j].multiply(den));
+            den = den.multiply(cDen[j]);
+        }
+        BigInteger[] qr = num.divideAndRemainder(den);
+        return qr[1].signum() == 0 ? qr[0] : null;
+    }
+
+    // true once k shares are in and f(0) is final
+    public boolean isComplete() {
+        return size == k;
+    }
+
+    // {numerator, denominator} of f(0), reduced; the denominator is 1 over GF(p)
+    public BigInteger[] secret() {
+        if (size < k) {
+            throw new IllegalStateException("Need " + k + " shares, have " + size);
+        }
+        return prime != null ? new BigInteger[] { secretNum, BigInteger.ONE } : sum.toArray();
+    }
+
+    // Shares used to build the polynomial so far (at most k)
+    public int size() {
+        return size;
+    }
+
+    public int threshold() {
+        return k;
+    }
+
+    // Shares checked after the polynomial was complete
+    public int checked() {
+        return checked;
+    }
+
+    // x of every checked share that disagreed, in arrival order
+    public List<BigInteger> inconsistent() {
+        return inconsistent;
+    }
+
+    // Reads shares from standard input as they arrive, one "x base value" per line
+    // ('#' starts a comment), and reports f(0) as soon as k are in
+    public static void main(String[] args) {
+        String primeArg = null;
+        String kArg = null;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--prime") && i + 1 < args.length) {
+                primeArg = args[++i];
+            } else if (kArg == null && !args[i].startsWith("--")) {
+                kArg = args[i];
+            } else {
+                kArg = null;
+                break;
+            }
+        }
+        if (kArg == null) {
+            System.err.println("Usage: java NewtonReconstructor [--prime <p>] <k>  < shares.txt");
+            System.err.println("       one share per line: <x> <base> <value>");
+            System.exit(1);
+        }
+
+        try {
+            BigInteger prime = primeArg != null ? new BigInteger(primeArg) : null;
+            NewtonReconstructor reconstructor = new NewtonReconstructor(Integer.parseInt(kArg), prime);
+            BufferedReader in = new BufferedReader(new InputStreamReader(System.in));
+            ResultWriter out = new ResultWriter(System.out);
+
+            String line;
+            while ((line = in.readLine()) != null) {
+                int comment = line.indexOf('#');
+                if (comment >= 0) line = line.substring(0, comment);
+                String[] fields = line.trim().split("\\s+");
+                if (fields.length == 1 && fields[0].isEmpty()) continue;
+                if (fields.length != 3) {
+                    throw new IllegalArgumentException("Expected <x> <base> <value>, got: " + line.trim());
+                }
+                BigInteger x = new BigInteger(fields[0]);
+                BigInteger y = BaseConversion.parse(fields[2], Integer.parseInt(fields[1]));
+
+                boolean wasComplete = reconstructor.isComplete();
+                boolean ok = reconstructor.add(x, y);
+                out.print("share x = ").print(x);
+                if (!wasComplete) {
+                    out.print(": added (").print(reconstructor.size()).print('/')
+                       .print(reconstructor.threshold()).print(')').println();
+                    if (reconstructor.isComplete()) {
+                        BigInteger[] secret = reconstructor.secret();
+                        out.print("secret f(0) = ").print(secret[0]);
+                        if (!secret[1].equals(BigInteger.ONE)) {
+                            out.print('/').print(secret[1]);
+                        }
+                        out.println();
+                    }
+                } else {
+                    out.println(ok ? ": consistent" : ": INCONSISTENT");
+                }
+                out.flush();
+            }
+
+            if (!reconstructor.isComplete()) {
+                out.print("only ").print(reconstructor.size()).print(" of ")
+                   .print(reconstructor.threshold()).print(" shares; f(0) is undetermined").println();
+            }
+            out.flush();
+            System.exit(reconstructor.inconsistent().isEmpty() ? 0 : 2);
+        } catch (Exception e) {
+            System.err.println("Error: " + e.getMessage());
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+}
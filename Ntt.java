@@ -0,0 +1,203 @@
+import java.util.Arrays;
+
+// Exact multiplication of long base-2^16 digit strings by number-theoretic transform.
+//
+// BigInteger stops at Toom-Cook 3, which is what keeps large Kronecker products in
+// FastInterpolation superlinear. Here both operands are convolved modulo two NTT
+// primes below 2^30 (Montgomery multiplication in 64-bit longs, no division in the
+// butterflies; a decimation-in-frequency forward and decimation-in-time inverse
+// transform, so no bit-reversal pass) and recombined by CRT: a convolution term is below
+// min(na, nb) * 2^32 <= 2^54, under the product of the primes (~2^58.7). Carries are
+// propagated at the end, so the result is the exact integer product.
+final class Ntt {
+
+    // Both primes are c * 2^s + 1 with primitive root 3; 2^23 bounds the length
+    static final int MAX_LENGTH = 1 << 23;
+
+    // Transform blocks up to this length (16 KiB of ints) are done stage by stage
+    private static final int BLOCK = 1 << 12;
+
+    private static final Field P1 = new Field(998244353L, 3);
+    private static final Field P2 = new Field(469762049L, 3);
+
+    private Ntt() {
+    }
+
+    // a[0..na) * b[0..nb), digits little-endian in [0, 2^16); na + nb digits out
+    static int[] multiply(int[] a, int na, int[] b, int nb) {
+        int n = Integer.highestOneBit(Math.max(na + nb - 1, 1) * 2 - 1);
+        if (n > MAX_LENGTH) {
+            throw new ArithmeticException("Product too long for NTT: " + (na + nb) + " digits");
+        }
+
+        int[] r1 = P1.convolve(a, na, b, nb, n);
+        int[] r2 = P2.convolve(a, na, b, nb, n);
+
+        // x = r1 + P1 * ((r2 - r1) / P1 mod P2), then carry in base 2^16
+        long p1 = P1.p;
+        long p2 = P2.p;
+        long p1InvModP2 = Field.pow(p1 % p2, p2 - 2, p2);
+        int[] digits = new int[na + nb];
+        long carry = 0;
+        for (int i = 0; i < digits.length; i++) {
+            long value = carry;
+            if (i < na + nb - 1) {
+                long t = ((r2[i] - r1[i]) % p2 + p2) % p2 * p1InvModP2 % p2;
+                value += r1[i] + p1 * t;
+            }
+            digits[i] = (int) (value & 0xffff);
+            carry = value >>> 16;
+        }
+        return digits;
+    }
+
+    // Z/p with Montgomery arithmetic (R = 2^32) and cached roots of unity
+    private static final class Field {
+        final long p;
+        final long g;
+        // -p^-1 mod 2^32
+        final long pNegInv;
+        final long r2;
+        private int[] forwardRoots = new int[0];
+        private int[] inverseRoots = new int[0];
+
+        Field(long p, long g) {
+            this.p = p;
+            this.g = g;
+            long inv = 1;
+            for (int i = 0; i < 5; i++) {
+                inv *= 2 - p * inv;
+            }
+            this.pNegInv = (-inv) & 0xffffffffL;
+            long r = (1L << 32) % p;
+            this.r2 = r * r % p;
+        }
+
+        // a * b / 2^32 mod p, for a, b < p
+        long mul(long a, long b) {
+            long t = a * b;
+            long m = ((t & 0xffffffffL) * pNegInv) & 0xffffffffL;
+            long u = (t + m * p) >>> 32;
+            return u >= p ? u - p : u;
+        }
+
+        static long pow(long base, long exp, long mod) {
+            long result = 1;
+            base %= mod;
+            while (exp > 0) {
+                if ((exp & 1) != 0) result = result * base % mod;
+                base = base * base % mod;
+                exp >>= 1;
+            }
+            return result;
+        }
+
+        int[] convolve(int[] a, int na, int[] b, int nb, int n) {
+            int[] fa = Arrays.copyOf(a, n);
+            int[] fb = Arrays.copyOf(b, n);
+            Arrays.fill(fa, na, n, 0);
+            Arrays.fill(fb, nb, n, 0);
+
+            int[] forward = roots(n, false);
+            int[] inverse = roots(n, true);
+            forward(fa, 0, n, forward);
+            forward(fb, 0, n, forward);
+            for (int i = 0; i < n; i++) {
+                fa[i] = (int) mul(fa[i], fb[i]);
+            }
+            inverse(fa, 0, n, inverse);
+
+            // Undo the R^-1 of the pointwise product and divide by n
+            long scale = mul(mul(Field.pow(n, p - 2, p), r2), r2);
+            for (int i = 0; i < n; i++) {
+                fa[i] = (int) mul(fa[i], scale);
+            }
+            return fa;
+        }
+
+        // Decimation in frequency: natural order in, bit-reversed order out. Blocks
+        // above BLOCK are split depth-first so the inner stages run in cache.
+        private void forward(int[] a, int from, int n, int[] w) {
+            if (n > BLOCK) {
+                int half = n >> 1;
+                for (int j = from, t = half; j < from + half; j++, t++) {
+                    forwardButterfly(a, j, half, w[t]);
+                }
+                forward(a, from, half, w);
+                forward(a, from + half, half, w);
+                return;
+            }
+            for (int half = n >> 1; half >= 1; half >>= 1) {
+                for (int i = from; i < from + n; i += 2 * half) {
+                    for (int j = i, t = half; j < i + half; j++, t++) {
+                        forwardButterfly(a, j, half, w[t]);
+                    }
+                }
+            }
+        }
+
+        private void forwardButterfly(int[] a, int j, int half, long w) {
+            long u = a[j];
+            long v = a[j + half];
+            long sum = u + v;
+            a[j] = (int) (sum >= p ? sum - p : sum);
+            a[j + half] = (int) mul(u - v + p, w);
+        }
+
+        // Decimation in time: bit-reversed order in, natural order out
+        private void inverse(int[] a, int from, int n, int[] w) {
+            if (n > BLOCK) {
+                int half = n >> 1;
+                inverse(a, from, half, w);
+                inverse(a, from + half, half, w);
+                for (int j = from, t = half; j < from + half; j++, t++) {
+                    inverseButterfly(a, j, half, w[t]);
+                }
+                return;
+            }
+            for (int half = 1; half < n; half <<= 1) {
+                for (int i = from; i < from + n; i += 2 * half) {
+                    for (int j = i, t = half; j < i + half; j++, t++) {
+                        inverseButterfly(a, j, half, w[t]);
+                    }
+                }
+            }
+        }
+
+        private void inverseButterfly(int[] a, int j, int half, long w) {
+            long u = a[j];
+            long v = mul(a[j + half], w);
+            long sum = u + v;
+            a[j] = (int) (sum >= p ? sum - p : sum);
+            long diff = u - v;
+            a[j + half] = (int) (diff < 0 ? diff + p : diff);
+        }
+
+        // w[half + j] = r^j for j < half, r a primitive (2 half)-th root of unity (or its
+        // inverse), in Montgomery form; the table for n also serves every smaller length
+        private synchronized int[] roots(int n, boolean inverse) {
+            int[] table = inverse ? inverseRoots : forwardRoots;
+            if (table.length >= n) {
+                return table;
+            }
+            table = new int[n];
+            for (int half = 1; half < n; half <<= 1) {
+                long root = pow(g, (p - 1) / (2 * half), p);
+                if (inverse) {
+                    root = pow(root, p - 2, p);
+                }
+                long mont = mul(root, r2);
+                table[half] = (int) mul(1, r2);
+                for (int j = 1; j < half; j++) {
+                    table[half + j] = (int) mul(table[half + j - 1], mont);
+                }
+            }
+            if (inverse) {
+                inverseRoots = table;
+            } else {
+                forwardRoots = table;
+            }
+            return table;
+        }
+    }
+}
@@ -0,0 +1,240 @@
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+// Lagrange interpolation at x = 0 with the k terms spread over a ForkJoinPool.
+//
+// Each term i needs prod_{j != i} (0 - xj), taken as M0 / (0 - xi) from the one
+// product M0 = prod_j (0 - xj), and its own denominator prod_{j != i} (xi - xj);
+// neither depends on any other term. The index range is split in halves down to
+// leaves of a few terms, each leaf sums its terms over the lcm of their
+// denominators, and the partial fractions are added pairwise back up the split
+// tree (again over the lcm, so operands stay near the serial sizes). The result is
+// reduced once, so it is exactly Lagrange.reduce(Lagrange.atZero(xs, ys)).
+//
+// atZeroMod splits the same way; a leaf inverts its denominators with one batched
+// modInverse and the partial sums are added mod p.
+public final class ParallelLagrange {
+
+    // Aim for this many leaves per worker so uneven leaves balance out
+    private static final int LEAVES_PER_THREAD = 4;
+
+    private ParallelLagrange() {
+    }
+
+    // {numerator, denominator} of f(0), reduced, the denominator positive
+    public static BigInteger[] atZero(BigInteger[] xs, BigInteger[] ys, int threads) {
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            return atZero(xs, ys, pool);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    public static BigInteger[] atZero(BigInteger[] xs, BigInteger[] ys, ForkJoinPool pool) {
+        int k = checkLengths(xs, ys);
+        if (k == 0) {
+            return new BigInteger[] { BigInteger.ZERO, BigInteger.ONE };
+        }
+        checkDistinct(xs);
+
+        // A share at x = 0 is f(0) itself; every other term has a zero numerator
+        for (int i = 0; i < k; i++) {
+            if (xs[i].signum() == 0) {
+                return new BigInteger[] { ys[i], BigInteger.ONE };
+            }
+        }
+
+        BigInteger[] negated = new BigInteger[k];
+        for (int i = 0; i < k; i++) {
+            negated[i] = xs[i].negate();
+        }
+        BigInteger m0 = Lagrange.product(negated, 0, k);
+
+        BigInteger[] sum = pool.invoke(new Terms(xs, ys, m0, 0, k, grain(k, pool)));
+        return Lagrange.reduce(sum);
+    }
+
+    // f(0) mod p
+    public static BigInteger atZeroMod(BigInteger[] xs, BigInteger[] ys, BigInteger p, int threads) {
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            return atZeroMod(xs, ys, p, pool);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    public static BigInteger atZeroMod(BigInteger[] xs, BigInteger[] ys, BigInteger p, ForkJoinPool pool) {
+        int k = checkLengths(xs, ys);
+        if (k == 0) {
+            return BigInteger.ZERO;
+        }
+
+        BigInteger[] x = new BigInteger[k];
+        for (int i = 0; i < k; i++) {
+            x[i] = xs[i].mod(p);
+        }
+        for (int i = 0; i < k; i++) {
+            if (x[i].signum() == 0) {
+                checkDistinctMod(x);
+                return ys[i].mod(p);
+            }
+        }
+
+        BigInteger m0 = BigInteger.ONE;
+        for (int i = 0; i < k; i++) {
+            m0 = m0.multiply(p.subtract(x[i])).mod(p);
+        }
+        return pool.invoke(new TermsMod(x, ys, p, m0, 0, k, grain(k, pool)));
+    }
+
+    // Unreduced sum of terms [from, to) of the full x-set, M0 = prod_j (0 - xj) given;
+    // what one DistributedLagrange worker contributes. ys is only read in [from, to).
+    static BigInteger[] slice(BigInteger[] xs, BigInteger[] ys, BigInteger m0, int from, int to,
+                              ForkJoinPool pool) {
+        return pool.invoke(new Terms(xs, ys, m0, from, to, grain(to - from, pool)));
+    }
+
+    // Sum of terms [from, to) mod p for x's already reduced mod p, M0 taken mod p
+    static BigInteger sliceMod(BigInteger[] x, BigInteger[] ys, BigInteger p, BigInteger m0, int from, int to,
+                               ForkJoinPool pool) {
+        return pool.invoke(new TermsMod(x, ys, p, m0, from, to, grain(to - from, pool)));
+    }
+
+    private static int grain(int k, ForkJoinPool pool) {
+        return Math.max(1, k / (pool.getParallelism() * LEAVES_PER_THREAD));
+    }
+
+    private static int checkLengths(BigInteger[] xs, BigInteger[] ys) {
+        if (ys.length != xs.length) {
+            throw new IllegalArgumentException("Expected " + xs.length + " y-values, got " + ys.length);
+        }
+        return xs.length;
+    }
+
+    // The serial path finds a zero denominator; here a leaf would, so check up front
+    static void checkDistinct(BigInteger[] xs) {
+        BigInteger[] sorted = xs.clone();
+        Arrays.sort(sorted);
+        for (int i = 1; i < sorted.length; i++) {
+            if (sorted[i].equals(sorted[i - 1])) {
+                throw new ArithmeticException("Division by zero");
+            }
+        }
+    }
+
+    static void checkDistinctMod(BigInteger[] x) {
+        BigInteger[] sorted = x.clone();
+        Arrays.sort(sorted);
+        for (int i = 1; i < sorted.length; i++) {
+            if (sorted[i].equals(sorted[i - 1])) {
+                throw new ArithmeticException("Division by zero: x-coordinates collide mod p");
+            }
+        }
+    }
+
+    // a/b + c/d over lcm(b, d); b and d positive
+    static BigInteger[] add(BigInteger[] left, BigInteger[] right) {
+        BigInteger b = left[1];
+        BigInteger d = right[1];
+        BigInteger g = b.gcd(d);
+        BigInteger bg = b.divide(g);
+        BigInteger dg = d.divide(g);
+        return new BigInteger[] {
+            left[0].multiply(dg).add(right[0].multiply(bg)),
+            bg.multiply(d)
+        };
+    }
+
+    // Sum of terms [from, to) as an unreduced fraction
+    @SuppressWarnings("serial")
+    private static final class Terms extends RecursiveTask<BigInteger[]> {
+        private final BigInteger[] xs;
+        private final BigInteger[] ys;
+        private final BigInteger m0;
+        private final int from;
+        private final int to;
+        private final int grain;
+
+        Terms(BigInteger[] xs, BigInteger[] ys, BigInteger m0, int from, int to, int grain) {
+            this.xs = xs;
+            this.ys = ys;
+            this.m0 = m0;
+            this.from = from;
+            this.to = to;
+            this.grain = grain;
+        }
+
+        @Override
+        protected BigInteger[] compute() {
+            if (to - from > grain) {
+                int mid = (from + to) >>> 1;
+                Terms left = new Terms(xs, ys, m0, from, mid, grain);
+                Terms right = new Terms(xs, ys, m0, mid, to, grain);
+                left.fork();
+                BigInteger[] r = right.compute();
+                return add(left.join(), r);
+            }
+
+            return Lagrange.terms(xs, ys, m0, from, to, null);
+        }
+    }
+
+    // Sum of terms [from, to) mod p
+    @SuppressWarnings("serial")
+    private static final class TermsMod extends RecursiveTask<BigInteger> {
+        private final BigInteger[] x;
+        private final BigInteger[] ys;
+        private final BigInteger p;
+        private final BigInteger m0;
+        private final int from;
+        private final int to;
+        private final int grain;
+
+        TermsMod(BigInteger[] x, BigInteger[] ys, BigInteger p, BigInteger m0, int from, int to, int grain) {
+            this.x = x;
+            this.ys = ys;
+            this.p = p;
+            this.m0 = m0;
+            this.from = from;
+            this.to = to;
+            this.grain = grain;
+        }
+
+        @Override
+        protected BigInteger compute() {
+            if (to - from > grain) {
+                int mid = (from + to) >>> 1;
+                TermsMod left = new TermsMod(x, ys, p, m0, from, mid, grain);
+                TermsMod right = new TermsMod(x, ys, p, m0, mid, to, grain);
+                left.fork();
+                BigInteger r = right.compute();
+                return left.join().add(r).mod(p);
+            }
+
+            // term i = y_i * M0 / ((0 - xi) * prod_{j != i} (xi - xj))
+            int k = x.length;
+            BigInteger[] dens = new BigInteger[to - from];
+            for (int i = from; i < to; i++) {
+                BigInteger den = p.subtract(x[i]);
+                for (int j = 0; j < k; j++) {
+                    if (j == i) continue;
+                    den = den.multiply(x[i].subtract(x[j])).mod(p);
+                }
+                if (den.signum() == 0) {
+                    throw new ArithmeticException("Division by zero: x-coordinates collide mod p");
+                }
+                dens[i - from] = den;
+            }
+            BigInteger[] inverses = Lagrange.batchInverse(dens, p);
+            BigInteger sum = BigInteger.ZERO;
+            for (int i = from; i < to; i++) {
+                sum = sum.add(ys[i].multiply(inverses[i - from]));
+            }
+            return sum.multiply(m0).mod(p);
+        }
+    }
+}
@@ -0,0 +1,403 @@
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.io.*;
+import java.lang.management.CompilationMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+// End-to-end performance regression suite over WorkloadGenerator share files.
+//
+// Every workload is timed on each reconstruction path that applies to it, from the
+// file on disk to the checked secret:
+//   lagrange  ShareReader.readMapped + Lagrange (the ShamirSecret default)
+//   parallel  ShareReader.readMapped + ParallelLagrange on --threads workers
+//   cached    Reconstructor, whose WeightCache holds the x-set after the warm-up
+//   robust    every share through GaoDecoder; the only path for corrupted workloads
+// Every path of a workload is warmed up before any is timed. Each path is then warmed
+// up again and run until its time budget is spent (at least three times), and reports latency p50/p90/p99, reconstructions and megabytes per second
+// and the peak heap from the memory pool MXBeans, reset before the path starts.
+// Latencies are wall time for a whole run, so they include GC pauses on purpose.
+//
+// With --baseline the results are compared against a stored run (perf/baseline.json):
+// a path regresses when its p50 or p99 latency grows, or its throughput shrinks, by
+// more than --tolerance, or its peak heap grows by more than twice that, in each of
+// three measurements (a regressed path is measured again before it counts), and then
+// the suite exits with status 2. Baselines only hold for the machine that recorded them;
+// record a fresh one with --write-baseline after a hardware or JDK change.
+// --write-baseline replaces the entries of the paths it ran and keeps the others.
+public final class PerfSuite {
+
+    private static final BigInteger P61 = BigInteger.ONE.shiftLeft(61).subtract(BigInteger.ONE);
+    private static final BigInteger P127 = BigInteger.ONE.shiftLeft(127).subtract(BigInteger.ONE);
+    private static final BigInteger P521 = BigInteger.ONE.shiftLeft(521).subtract(BigInteger.ONE);
+
+    private static final int MIXED = WorkloadGenerator.MIXED_BASES;
+
+    // Measurements of a path that regressed, the last one deciding
+    private static final int ROUNDS = 3;
+
+    // Warm-up rounds over all of a workload's paths stop once one costs the JIT less
+    // than this, or after this many
+    private static final long SETTLED_JIT_MS = 20;
+    private static final int WARM_ROUNDS = 8;
+
+    // name, k, n, bits, prime, base, corrupt; the seed is fixed so files are stable
+    static List<WorkloadGenerator> workloads(String tier) {
+        List<WorkloadGenerator> list = new ArrayList<>();
+        list.add(new WorkloadGenerator("k7-b64-rational", 7, 7, 64, null, 10, 0, 7));
+        list.add(new WorkloadGenerator("k100-b4096-mixed", 100, 100, 4096, null, MIXED, 0, 100));
+        list.add(new WorkloadGenerator("k64-b16384-mixed", 64, 64, 16384, null, MIXED, 0, 64));
+        list.add(new WorkloadGenerator("k2000-p127-mixed", 2000, 2000, 0, P127, MIXED, 0, 2000));
+        list.add(new WorkloadGenerator("k500-p521-mixed", 500, 500, 0, P521, MIXED, 0, 500));
+        list.add(new WorkloadGenerator("k15-n25-c3-rational", 15, 25, 256, null, MIXED, 3, 15));
+        list.add(new WorkloadGenerator("k30-n50-c5-p127", 30, 50, 0, P127, MIXED, 5, 30));
+        if (tier.equals("full")) {
+            list.add(new WorkloadGenerator("k20000-p61", 20000, 20000, 0, P61, 16, 0, 20000));
+            list.add(new WorkloadGenerator("k100000-p61", 100000, 100000, 0, P61, 16, 0, 100000));
+            list.add(new WorkloadGenerator("k100000-p127-mixed", 100000, 100000, 0, P127, MIXED, 0, 100001));
+            list.add(new WorkloadGenerator("k300-b16384-mixed", 300, 300, 16384, null, MIXED, 0, 300));
+            list.add(new WorkloadGenerator("k60-n100-c20-p521", 60, 100, 0, P521, MIXED, 20, 60));
+        }
+        return list;
+    }
+
+    // Paths that make sense for a workload. Corrupted sets only succeed through Gao
+    // decoding; ParallelLagrange and GaoDecoder are quadratic in BigInteger operations
+    // (a minute and more at k = 20,000 on one core), so the large sets leave them out.
+    // Their lagrange path is the ShamirSecret default: the subproduct tree for
+    // 2^127 - 1, but for 2^61 - 1 PrimeField64's quadratic word loop, which
+    // Lagrange.atZeroMod prefers for every p < 2^63. That is kept on purpose so the
+    // default is what gets timed: about 3 s a run at k = 20,000 and 70 s at
+    // k = 100,000 on one core (the tree would take 32 s there), so k100000-p61 alone
+    // costs several minutes of the full tier.
+    static List<String> paths(WorkloadGenerator workload) {
+        if (workload.corrupt > 0) {
+            return List.of("robust");
+        }
+        List<String> paths = new ArrayList<>(List.of("lagrange"));
+        if (workload.k <= 2000) {
+            paths.add("parallel");
+        }
+        paths.add("cached");
+        if (workload.n <= 500) {
+            paths.add("robust");
+        }
+        return paths;
+    }
+
+    // One path's measurements; field names are the baseline's JSON keys
+    static final class Metrics {
+        int runs;
+        double p50Ms;
+        double p90Ms;
+        double p99Ms;
+        double opsPerSec;
+        double mbPerSec;
+        double peakHeapMb;
+    }
+
+    private final int threads;
+    private final double seconds;
+    private final ForkJoinPool pool;
+
+    PerfSuite(int threads, double seconds) {
+        this.threads = threads;
+        this.seconds = seconds;
+        this.pool = new ForkJoinPool(threads);
+    }
+
+    // Runs every path over the file, in rounds of its warm-up budget each, until a
+    // round leaves the JIT nearly idle (or WARM_ROUNDS have run). The paths share the
+    // reader and the BigInteger code, and on few cores the JIT keeps compiling for
+    // seconds. Without this pass the first path measured was charged for it and took
+    // up to three times as long as the same path measured later.
+    void warmUp(WorkloadGenerator workload, Path file, List<String> paths) throws IOException {
+        BigInteger expected = workload.secret();
+        CompilationMXBean jit = ManagementFactory.getCompilationMXBean();
+        try (Reconstructor reconstructor = new Reconstructor(null, threads)) {
+            for (int round = 0; round < WARM_ROUNDS; round++) {
+                long compiled = jit.getTotalCompilationTime();
+                for (String path : paths) {
+                    long warmUntil = System.nanoTime() + (long) (seconds * 0.25e9);
+                    do {
+                        run(workload, file, path, reconstructor, expected);
+                    } while (System.nanoTime() < warmUntil);
+                }
+                if (jit.getTotalCompilationTime() - compiled < SETTLED_JIT_MS) {
+                    break;
+                }
+            }
+        }
+    }
+
+    // Times one path over one share file; every run's secret is checked
+    Metrics measure(WorkloadGenerator workload, Path file, String path) throws IOException {
+        BigInteger expected = workload.secret();
+        long size = Files.size(file);
+        try (Reconstructor reconstructor = new Reconstructor(null, threads)) {
+            // Warm-up: compiles the path and, for cached, fills the WeightCache
+            long warmUntil = System.nanoTime() + (long) (seconds * 0.25e9);
+            do {
+                run(workload, file, path, reconstructor, expected);
+            } while (System.nanoTime() < warmUntil);
+
+            System.gc();
+            resetPeakHeap();
+            List<Long> latencies = new ArrayList<>();
+            long start = System.nanoTime();
+            long until = start + (long) (seconds * 1e9);
+            do {
+                long t0 = System.nanoTime();
+                run(workload, file, path, reconstructor, expected);
+                latencies.add(System.nanoTime() - t0);
+            } while (latencies.size() < 3 || System.nanoTime() < until);
+            long elapsed = System.nanoTime() - start;
+
+            long[] sorted = latencies.stream().mapToLong(Long::longValue).sorted().toArray();
+            Metrics m = new Metrics();
+            m.runs = sorted.length;
+            m.p50Ms = percentile(sorted, 0.50) / 1e6;
+            m.p90Ms = percentile(sorted, 0.90) / 1e6;
+            m.p99Ms = percentile(sorted, 0.99) / 1e6;
+            m.opsPerSec = sorted.length / (elapsed / 1e9);
+            m.mbPerSec = m.opsPerSec * size / 1e6;
+            m.peakHeapMb = peakHeap() / 1e6;
+            return m;
+        }
+    }
+
+    private void run(WorkloadGenerator workload, Path file, String path, Reconstructor reconstructor,
+                     BigInteger expected) throws IOException {
+        String name = file.toString();
+        BigInteger[] secret;
+        switch (path) {
+            case "lagrange": {
+                ShareSet shares = ShareReader.readMapped(name, true, 1, null);
+                secret = shares.prime != null
+                        ? new BigInteger[] { Lagrange.atZeroMod(shares.xs, shares.ys, shares.prime), BigInteger.ONE }
+                        : Lagrange.reduce(Lagrange.atZero(shares.xs, shares.ys));
+                break;
+            }
+            case "parallel": {
+                ShareSet shares = ShareReader.readMapped(name, true, threads, null);
+                secret = shares.prime != null
+                        ? new BigInteger[] { ParallelLagrange.atZeroMod(shares.xs, shares.ys, shares.prime, pool), BigInteger.ONE }
+                        : ParallelLagrange.atZero(shares.xs, shares.ys, pool);
+                break;
+            }
+            case "cached": {
+                Reconstructor.Result result = reconstructor.reconstruct(Paths.get(name));
+                secret = new BigInteger[] { result.numerator, result.denominator };
+                break;
+            }
+            case "robust": {
+                Reconstructor.Result result = reconstructor.decode(ShareReader.readMapped(name, false, 1, null));
+                if (result.inconsistent().length != workload.corrupt) {
+                    throw new IllegalStateException(workload.name + ": expected " + workload.corrupt
+                            + " bad shares, found " + result.inconsistent().length);
+                }
+                secret = new BigInteger[] { result.numerator, result.denominator };
+                break;
+            }
+            default:
+                throw new IllegalArgumentException("Unknown path: " + path);
+        }
+        if (!secret[1].equals(BigInteger.ONE) || !secret[0].equals(expected)) {
+            throw new IllegalStateException(workload.name + "/" + path + ": reconstructed "
+                    + secret[0] + "/" + secret[1] + ", expected " + expected);
+        }
+    }
+
+    // Nearest-rank percentile of sorted latencies
+    static long percentile(long[] sorted, double q) {
+        int rank = (int) Math.ceil(q * sorted.length);
+        return sorted[Math.max(0, Math.min(sorted.length, rank) - 1)];
+    }
+
+    private static void resetPeakHeap() {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+            }
+        }
+    }
+
+    // Sum of the heap pools' peaks since the reset; the pools peak at different
+    // moments, so this bounds the true peak from above
+    private static long peakHeap() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.getPeakUsage() != null) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        return peak;
+    }
+
+    // Regressions of current against baseline, one line each; empty when within tolerance
+    static List<String> compare(String key, Metrics current, Metrics baseline, double tolerance) {
+        List<String> regressions = new ArrayList<>();
+        if (current.p50Ms > baseline.p50Ms * (1 + tolerance)) {
+            regressions.add(String.format("%s: p50 %.2f ms, baseline %.2f ms", key, current.p50Ms, baseline.p50Ms));
+        }
+        // Below 100 runs the nearest-rank p99 is just the slowest run
+        if (current.runs >= 100 && baseline.runs >= 100 && current.p99Ms > baseline.p99Ms * (1 + tolerance)) {
+            regressions.add(String.format("%s: p99 %.2f ms, baseline %.2f ms", key, current.p99Ms, baseline.p99Ms));
+        }
+        if (current.opsPerSec < baseline.opsPerSec / (1 + tolerance)) {
+            regressions.add(String.format("%s: %.1f ops/s, baseline %.1f ops/s", key, current.opsPerSec, baseline.opsPerSec));
+        }
+        if (current.peakHeapMb > baseline.peakHeapMb * (1 + 2 * tolerance)) {
+            regressions.add(String.format("%s: peak heap %.1f MB, baseline %.1f MB", key, current.peakHeapMb, baseline.peakHeapMb));
+        }
+        return regressions;
+    }
+
+    static Map<String, Metrics> readBaseline(Path file) throws IOException {
+        Map<String, Metrics> baseline = new LinkedHashMap<>();
+        try (Reader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            JsonObject json = JsonParser.parseReader(in).getAsJsonObject();
+            Gson gson = new Gson();
+            for (String key : json.getAsJsonObject("results").keySet()) {
+                baseline.put(key, gson.fromJson(json.getAsJsonObject("results").get(key), Metrics.class));
+            }
+        }
+        return baseline;
+    }
+
+    static void writeBaseline(Path file, Map<String, Metrics> results, int threads) throws IOException {
+        JsonObject json = new JsonObject();
+        json.addProperty("java", System.getProperty("java.version"));
+        json.addProperty("os", System.getProperty("os.name") + " " + System.getProperty("os.arch"));
+        json.addProperty("processors", Runtime.getRuntime().availableProcessors());
+        json.addProperty("threads", threads);
+        Gson gson = new GsonBuilder().setPrettyPrinting().create();
+        json.add("results", gson.toJsonTree(results));
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        Files.writeString(file, gson.toJson(json) + "\n", StandardCharsets.UTF_8);
+    }
+
+    public static void main(String[] args) {
+        String usage = "Usage: java PerfSuite [--tier quick|full] [--only <workload>] [--dir <dir>] "
+                     + "[--baseline <file>] [--write-baseline] [--tolerance <f>] [--seconds <s>] [--threads <n>]";
+        String tier = "quick";
+        String only = null;
+        Path dir = Paths.get("target", "workloads");
+        Path baselineFile = null;
+        boolean write = false;
+        double tolerance = 0.5;
+        double seconds = 2;
+        int threads = Runtime.getRuntime().availableProcessors();
+        boolean valid = true;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--write-baseline")) {
+                write = true;
+                continue;
+            }
+            if (i + 1 >= args.length) {
+                valid = false;
+                break;
+            }
+            switch (args[i]) {
+                case "--tier": tier = args[++i]; break;
+                case "--only": only = args[++i]; break;
+                case "--dir": dir = Paths.get(args[++i]); break;
+                case "--baseline": baselineFile = Paths.get(args[++i]); break;
+                case "--tolerance": tolerance = Double.parseDouble(args[++i]); break;
+                case "--seconds": seconds = Double.parseDouble(args[++i]); break;
+                case "--threads": threads = Integer.parseInt(args[++i]); break;
+                default: valid = false;
+            }
+            if (!valid) break;
+        }
+        if (!valid || !(tier.equals("quick") || tier.equals("full")) || threads < 1 || seconds <= 0
+                || tolerance < 0 || (write && baselineFile == null)) {
+            System.err.println(usage);
+            System.exit(1);
+        }
+
+        List<String> regressions = new ArrayList<>();
+        try {
+            Map<String, Metrics> baseline = baselineFile != null && !write && Files.exists(baselineFile)
+                    ? readBaseline(baselineFile) : Map.of();
+            if (baselineFile != null && !write && baseline.isEmpty()) {
+                throw new FileNotFoundException("No baseline at " + baselineFile + "; record one with --write-baseline");
+            }
+            Map<String, Metrics> results = new LinkedHashMap<>();
+            PerfSuite suite = new PerfSuite(threads, seconds);
+            System.out.printf("%-22s %-9s %6s %10s %10s %10s %10s %9s %9s  %s%n", "workload", "path", "runs",
+                    "p50 ms", "p90 ms", "p99 ms", "ops/s", "MB/s", "heap MB", "vs baseline");
+            for (WorkloadGenerator workload : workloads(tier)) {
+                if (only != null && !workload.name.equals(only)) {
+                    continue;
+                }
+                long generated = System.nanoTime();
+                Path file = workload.file(dir);
+                double generateMs = (System.nanoTime() - generated) / 1e6;
+                if (generateMs > 1000) {
+                    System.err.printf("generated %s in %.0f ms%n", file, generateMs);
+                }
+                suite.warmUp(workload, file, paths(workload));
+                for (String path : paths(workload)) {
+                    String key = workload.name + "/" + path;
+                    Metrics m = suite.measure(workload, file, path);
+                    String verdict = "";
+                    if (!baseline.isEmpty()) {
+                        Metrics before = baseline.get(key);
+                        List<String> found = before != null ? compare(key, m, before, tolerance) : List.of();
+                        // A busy machine makes single rounds noisy; only count what persists
+                        for (int round = 1; round < ROUNDS && !found.isEmpty(); round++) {
+                            Metrics again = suite.measure(workload, file, path);
+                            if (again.p50Ms < m.p50Ms) {
+                                m = again;
+                            }
+                            found = compare(key, again, before, tolerance);
+                        }
+                        regressions.addAll(found);
+                        verdict = before == null ? "new" : found.isEmpty()
+                                ? String.format("%+.0f%% p50", 100 * (m.p50Ms / before.p50Ms - 1)) : "REGRESSED";
+                    }
+                    results.put(key, m);
+                    System.out.printf("%-22s %-9s %6d %10.3f %10.3f %10.3f %10.1f %9.1f %9.1f  %s%n", workload.name,
+                            path, m.runs, m.p50Ms, m.p90Ms, m.p99Ms, m.opsPerSec, m.mbPerSec, m.peakHeapMb, verdict);
+                }
+            }
+            suite.pool.shutdown();
+            if (write) {
+                // Paths not run this time (--only, or the quick tier over a full
+                // baseline) keep their stored results
+                Map<String, Metrics> merged = Files.exists(baselineFile)
+                        ? readBaseline(baselineFile) : new LinkedHashMap<>();
+                merged.putAll(results);
+                writeBaseline(baselineFile, merged, threads);
+                System.err.println("Baseline written to " + baselineFile);
+            }
+        } catch (Exception e) {
+            System.err.println("Error: " + e.getMessage());
+            e.printStackTrace();
+            System.exit(1);
+        }
+
+        if (!regressions.isEmpty()) {
+            System.err.println(regressions.size() + " regression(s) past " + Math.round(tolerance * 100) + "%:");
+            for (String regression : regressions) {
+                System.err.println("  " + regression);
+            }
+            System.exit(2);
+        }
+    }
+}
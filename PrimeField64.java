@@ -0,0 +1,210 @@
+import java.math.BigInteger;
+
+// f(0) over GF(p) for primes below 2^63 on primitive longs.
+//
+// Values are held in Montgomery form (a * 2^64 mod p) in long[] scratch arrays owned
+// by the engine, and multiplied with Math.multiplyHigh plus one Montgomery reduction,
+// so the O(k^2) denominator loop runs without BigInteger and, once the arrays have
+// grown to the largest k seen, without allocating. Using
+//   w_i = M0 / ((0 - xi) * prod_{j != i} (xi - xj)),  M0 = prod_j (0 - xj)
+// the k denominators are inverted together (Montgomery's trick) with a single
+// exponentiation by p - 2.
+//
+// An engine is not thread-safe; atZeroMod keeps one per thread for the last prime it
+// saw. Lagrange.atZeroMod routes every p < 2^63 here.
+public final class PrimeField64 {
+
+    private static final ThreadLocal<PrimeField64> ENGINES = new ThreadLocal<>();
+
+    private final long p;
+    // -p^-1 mod 2^64
+    private final long pNegInv;
+    // 2^128 mod p, to enter Montgomery form
+    private final long r2;
+    // 2^64 mod p, the Montgomery form of 1
+    private final long one;
+
+    private long[] xs = new long[16];
+    private long[] dens = new long[16];
+    private long[] running = new long[16];
+
+    public PrimeField64(long p) {
+        if (p < 3 || (p & 1) == 0) {
+            throw new IllegalArgumentException("Modulus must be an odd prime below 2^63: " + p);
+        }
+        this.p = p;
+        long inv = p;
+        for (int i = 0; i < 5; i++) {
+            inv *= 2 - p * inv;
+        }
+        this.pNegInv = -inv;
+        BigInteger modulus = BigInteger.valueOf(p);
+        this.r2 = BigInteger.ONE.shiftLeft(128).mod(modulus).longValueExact();
+        this.one = BigInteger.ONE.shiftLeft(64).mod(modulus).longValueExact();
+    }
+
+    // true when p fits this engine: odd, at least 3 and below 2^63 (Montgomery form
+    // needs an odd modulus, so p = 2 stays on the BigInteger path)
+    public static boolean fits(BigInteger p) {
+        return p.signum() > 0 && p.testBit(0) && p.bitLength() > 1 && p.bitLength() < 64;
+    }
+
+    // f(0) mod p for p < 2^63 through this thread's engine
+    public static BigInteger atZeroMod(BigInteger[] xs, BigInteger[] ys, BigInteger p) {
+        long modulus = p.longValueExact();
+        PrimeField64 engine = ENGINES.get();
+        if (engine == null || engine.p != modulus) {
+            engine = new PrimeField64(modulus);
+            ENGINES.set(engine);
+        }
+        return BigInteger.valueOf(engine.atZero(xs, ys));
+    }
+
+    public long modulus() {
+        return p;
+    }
+
+    // f(0) from BigInteger shares, each reduced straight into the scratch arrays
+    public long atZero(BigInteger[] x, BigInteger[] y) {
+        int k = x.length;
+        if (y.length != k) {
+            throw new IllegalArgumentException("Expected " + k + " y-values, got " + y.length);
+        }
+        ensure(k);
+        for (int i = 0; i < k; i++) {
+            xs[i] = toMontgomery(reduce(x[i]));
+            running[i] = toMontgomery(reduce(y[i]));
+        }
+        return solve(k);
+    }
+
+    // f(0) from the first k entries of x and y; any long values, reduced mod p
+    public long atZero(long[] x, long[] y, int k) {
+        if (x.length < k || y.length < k) {
+            throw new IllegalArgumentException("Expected " + k + " shares");
+        }
+        ensure(k);
+        for (int i = 0; i < k; i++) {
+            xs[i] = toMontgomery(Math.floorMod(x[i], p));
+            running[i] = toMontgomery(Math.floorMod(y[i], p));
+        }
+        return solve(k);
+    }
+
+    // xs holds the x's and running the y's, both in Montgomery form
+    private long solve(int k) {
+        if (k == 0) {
+            return 0;
+        }
+
+        // dens[i] = prod_{j != i} (xi - xj)
+        for (int i = 0; i < k; i++) {
+            long xi = xs[i];
+            long den = one;
+            for (int j = 0; j < k; j++) {
+                if (j == i) continue;
+                den = multiply(den, subtract(xi, xs[j]));
+            }
+            if (den == 0) {
+                throw new ArithmeticException("Division by zero: x-coordinates collide mod p");
+            }
+            dens[i] = den;
+        }
+
+        // A share at x = 0 is f(0) itself
+        long m0 = one;
+        for (int i = 0; i < k; i++) {
+            if (xs[i] == 0) {
+                return fromMontgomery(running[i]);
+            }
+            m0 = multiply(m0, subtract(0, xs[i]));
+        }
+
+        // Batch-invert (0 - xi) * dens[i]: prefix products go into xs, which is no
+        // longer needed, then one inverse is peeled back off
+        long prefix = one;
+        for (int i = 0; i < k; i++) {
+            long d = multiply(subtract(0, xs[i]), dens[i]);
+            dens[i] = d;
+            xs[i] = prefix;
+            prefix = multiply(prefix, d);
+        }
+        long inverse = power(prefix, p - 2);
+        long sum = 0;
+        for (int i = k - 1; i >= 0; i--) {
+            long wi = multiply(inverse, xs[i]);
+            inverse = multiply(inverse, dens[i]);
+            sum = add(sum, multiply(wi, running[i]));
+        }
+        return fromMontgomery(multiply(sum, m0));
+    }
+
+    // c[0] + c[1] x + ... + c[k-1] x^(k-1) by Horner's rule, the coefficients in
+    // Montgomery form and x, the result plain. Touches no scratch state, so one engine
+    // can evaluate from several threads.
+    long horner(long[] c, long x) {
+        long xm = toMontgomery(Math.floorMod(x, p));
+        long y = 0;
+        for (int j = c.length - 1; j >= 0; j--) {
+            y = add(multiply(y, xm), c[j]);
+        }
+        return fromMontgomery(y);
+    }
+
+    private long reduce(BigInteger v) {
+        if (v.bitLength() < 64) {
+            return Math.floorMod(v.longValue(), p);
+        }
+        return v.mod(BigInteger.valueOf(p)).longValue();
+    }
+
+    private void ensure(int k) {
+        if (xs.length < k) {
+            int size = Math.max(k, xs.length * 2);
+            xs = new long[size];
+            dens = new long[size];
+            running = new long[size];
+        }
+    }
+
+    // --- Montgomery arithmetic, all values in [0, p) ---
+
+    // a * b / 2^64 mod p
+    long multiply(long a, long b) {
+        long lo = a * b;
+        long hi = Math.multiplyHigh(a, b);
+        long m = lo * pNegInv;
+        long u = hi + BaseConversion.unsignedMultiplyHigh(m, p) + (lo != 0 ? 1 : 0);
+        return u < 0 || u >= p ? u - p : u;
+    }
+
+    long add(long a, long b) {
+        // May pass 2^63 when p does not leave a spare bit
+        long s = a + b;
+        return s < 0 || s >= p ? s - p : s;
+    }
+
+    private long subtract(long a, long b) {
+        long d = a - b;
+        return d < 0 ? d + p : d;
+    }
+
+    long toMontgomery(long a) {
+        return multiply(a, r2);
+    }
+
+    long fromMontgomery(long a) {
+        return multiply(a, 1);
+    }
+
+    // base^e for base in Montgomery form
+    private long power(long base, long e) {
+        long result = one;
+        while (e > 0) {
+            if ((e & 1) != 0) result = multiply(result, base);
+            base = multiply(base, base);
+            e >>= 1;
+        }
+        return result;
+    }
+}
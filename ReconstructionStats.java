@@ -0,0 +1,236 @@
+import java.lang.management.ManagementFactory;
+import java.math.BigInteger;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+// Per-phase counters for one reconstruction run, reported as JDK Flight Recorder
+// events and, on request, as a JSON summary.
+//
+// A run moves through five phases: read (file I/O), parse (JSON tokenizing and share
+// selection), convert (digit strings to BigInteger), interpolate and output. Reads and
+// conversions happen inside the parse loop, so instead of nested timers the run keeps
+// one current phase: enter charges the wall time and the bytes the calling thread
+// allocated since the previous switch to the phase being left. Allocation comes from
+// com.sun.management.ThreadMXBean and only covers the calling thread, so work handed
+// to a pool (--threads) is missing from it. maxBits is the widest BigInteger seen in
+// interpolation: weights, terms and sums as they are formed on the Lagrange and
+// cached-weight paths, the 128-bit Montgomery product below 2^63, the packed root
+// product of the subproduct tree, and only the result for --threads, --workers and
+// --robust.
+//
+// Callers that are not instrumented pass null around instead of an instance, so the
+// hot loops pay one null check. An instance belongs to one thread.
+public final class ReconstructionStats {
+
+    public static final int READ = 0;
+    public static final int PARSE = 1;
+    public static final int CONVERT = 2;
+    public static final int INTERPOLATE = 3;
+    public static final int OUTPUT = 4;
+    private static final String[] PHASES = { "read", "parse", "convert", "interpolate", "output" };
+
+    private static final com.sun.management.ThreadMXBean THREADS = allocationCounter();
+
+    private final String source;
+    private final Run run = new Run();
+    private final long[] nanos = new long[PHASES.length];
+    private final long[] allocated = new long[PHASES.length];
+    private final long[] bytes = new long[PHASES.length];
+    private final long[] points = new long[PHASES.length];
+    private long maxBits;
+    private long runs;
+
+    private int phase = -1;
+    private long mark;
+    private long allocationMark;
+
+    private ReconstructionStats(String source) {
+        this.source = source;
+    }
+
+    // Counters for a run over source, or null when neither the JSON summary is wanted
+    // nor a flight recording has the events enabled
+    public static ReconstructionStats start(String source, boolean summary) {
+        if (!summary && !new PhaseEvent().isEnabled()) {
+            return null;
+        }
+        ReconstructionStats stats = new ReconstructionStats(source);
+        stats.run.begin();
+        stats.runs = 1;
+        return stats;
+    }
+
+    // An empty total for add, e.g. over the files of a batch; emits no events
+    public static ReconstructionStats total(String source) {
+        return new ReconstructionStats(source);
+    }
+
+    // Switches to phase (-1 for none) and returns the phase that was current
+    public int enter(int next) {
+        long now = System.nanoTime();
+        long allocatedNow = allocatedBytes();
+        int previous = phase;
+        if (previous >= 0) {
+            nanos[previous] += now - mark;
+            allocated[previous] += allocatedNow - allocationMark;
+        }
+        phase = next;
+        mark = now;
+        allocationMark = allocatedNow;
+        return previous;
+    }
+
+    public void count(int phase, long bytes, long points) {
+        this.bytes[phase] += bytes;
+        this.points[phase] += points;
+    }
+
+    public void bits(long bitLength) {
+        if (bitLength > maxBits) {
+            maxBits = bitLength;
+        }
+    }
+
+    public void bits(BigInteger value) {
+        bits(value.bitLength());
+    }
+
+    public long maxBits() {
+        return maxBits;
+    }
+
+    public long nanos(int phase) {
+        return nanos[phase];
+    }
+
+    // Closes the current phase and commits one event per phase and one for the run
+    public void finish() {
+        enter(-1);
+        for (int p = 0; p < PHASES.length; p++) {
+            PhaseEvent event = new PhaseEvent();
+            if (!event.isEnabled()) {
+                break;
+            }
+            event.source = source;
+            event.phase = PHASES[p];
+            event.wallTime = nanos[p];
+            event.bytes = bytes[p];
+            event.points = points[p];
+            event.allocated = allocated[p];
+            event.maxBits = p == INTERPOLATE ? maxBits : 0;
+            event.commit();
+        }
+        run.end();
+        if (run.shouldCommit()) {
+            run.source = source;
+            run.points = points[INTERPOLATE];
+            run.maxBits = maxBits;
+            run.commit();
+        }
+    }
+
+    // Adds a finished run's counters to this total
+    public synchronized void add(ReconstructionStats other) {
+        for (int p = 0; p < PHASES.length; p++) {
+            nanos[p] += other.nanos[p];
+            allocated[p] += other.allocated[p];
+            bytes[p] += other.bytes[p];
+            points[p] += other.points[p];
+        }
+        bits(other.maxBits);
+        runs += other.runs;
+    }
+
+    // {"source":...,"runs":1,"maxBits":...,"phases":{"read":{"micros":...,...},...}}
+    public synchronized void appendJson(StringBuilder sb) {
+        sb.append("{\"source\":");
+        BatchRunner.appendString(sb, source);
+        sb.append(",\"runs\":").append(runs);
+        sb.append(",\"maxBits\":").append(maxBits);
+        sb.append(",\"phases\":{");
+        for (int p = 0; p < PHASES.length; p++) {
+            if (p > 0) sb.append(',');
+            sb.append('"').append(PHASES[p]).append("\":{");
+            sb.append("\"micros\":").append(nanos[p] / 1000);
+            sb.append(",\"bytes\":").append(bytes[p]);
+            sb.append(",\"points\":").append(points[p]);
+            sb.append(",\"allocatedBytes\":").append(allocated[p]);
+            sb.append('}');
+        }
+        sb.append("}}");
+    }
+
+    public String toJson() {
+        StringBuilder sb = new StringBuilder(512);
+        appendJson(sb);
+        return sb.toString();
+    }
+
+    private static long allocatedBytes() {
+        return THREADS != null ? THREADS.getCurrentThreadAllocatedBytes() : 0;
+    }
+
+    private static com.sun.management.ThreadMXBean allocationCounter() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean threads =
+                    (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+            if (threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled()) {
+                return threads;
+            }
+        }
+        return null;
+    }
+
+    @Name("shamir.Phase")
+    @Label("Reconstruction Phase")
+    @Category("Shamir")
+    @Description("Totals of one phase of a reconstruction run")
+    static final class PhaseEvent extends Event {
+        @Label("Source")
+        String source;
+
+        @Label("Phase")
+        String phase;
+
+        @Label("Wall Time")
+        @Timespan
+        long wallTime;
+
+        @Label("Bytes")
+        @Description("Bytes read from the file, or digits converted")
+        @DataAmount
+        long bytes;
+
+        @Label("Points")
+        long points;
+
+        @Label("Max Bits")
+        @Description("Widest intermediate BigInteger in interpolation")
+        long maxBits;
+
+        @Label("Allocated")
+        @DataAmount
+        long allocated;
+    }
+
+    @Name("shamir.Reconstruction")
+    @Label("Reconstruction")
+    @Category("Shamir")
+    @Description("One reconstruction run from reading the shares to printing f(0)")
+    static final class Run extends Event {
+        @Label("Source")
+        String source;
+
+        @Label("Points")
+        long points;
+
+        @Label("Max Bits")
+        long maxBits;
+    }
+}
@@ -0,0 +1,213 @@
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+// Reconstruction as a library: one thread-safe object for in-process callers.
+//
+// The command-line classes each carry their own Fraction and Point and end in
+// System.exit; a Reconstructor takes x/y arrays, a parsed ShareSet or a share source
+// and returns a Result. One instance is meant to be shared by all request threads
+// and keeps what pays off across calls: a WeightCache, so x-sets that repeat only
+// cost the dot product, and, with threads > 1, a ForkJoinPool that large thresholds
+// are interpolated on. The engines reuse their own per-thread scratch (PrimeField64).
+// Failures are exceptions: IllegalArgumentException for malformed input or too few
+// shares, ArithmeticException for x's that collide, IOException from sources.
+public final class Reconstructor implements AutoCloseable {
+
+    // Below this many shares the terms are not worth handing to the pool
+    static final int PARALLEL_K = 64;
+
+    private final BigInteger prime;
+    private final ForkJoinPool pool;
+    private final WeightCache weights = new WeightCache();
+
+    // Over the rationals, or the prime a share set names in keys.prime
+    public Reconstructor() {
+        this(null, 1);
+    }
+
+    // prime, when not null, overrides keys.prime
+    public Reconstructor(BigInteger prime) {
+        this(prime, 1);
+    }
+
+    public Reconstructor(BigInteger prime, int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads must be at least 1, got " + threads);
+        }
+        if (prime != null) {
+            Lagrange.checkKnownPrime(prime);
+        }
+        this.prime = prime;
+        this.pool = threads > 1 ? new ForkJoinPool(threads) : null;
+    }
+
+    // f(0) through every given point
+    public Result reconstruct(BigInteger[] xs, BigInteger[] ys) {
+        return reconstruct(xs, ys, prime);
+    }
+
+    // f(0) through every given point over GF(p), or the rationals when p is null
+    public Result reconstruct(BigInteger[] xs, BigInteger[] ys, BigInteger p) {
+        if (xs.length != ys.length) {
+            throw new IllegalArgumentException("Expected " + xs.length + " y-values, got " + ys.length);
+        }
+        if (xs.length == 0) {
+            throw new IllegalArgumentException("No shares to reconstruct from");
+        }
+        if (p != null) {
+            Lagrange.checkKnownPrime(p);
+        }
+
+        BigInteger[] secret;
+        boolean parallel = pool != null && xs.length >= PARALLEL_K;
+        if (p != null) {
+            BigInteger value = parallel
+                    ? ParallelLagrange.atZeroMod(xs, ys, p, pool)
+                    : weights.atZeroMod(xs, ys, p);
+            secret = new BigInteger[] { value, BigInteger.ONE };
+        } else {
+            secret = parallel
+                    ? ParallelLagrange.atZero(xs, ys, pool)
+                    : Lagrange.reduce(weights.atZero(xs, ys));
+        }
+        return new Result(secret, p, xs.clone(), new int[0]);
+    }
+
+    // f(0) through the shares of a parsed set, over this instance's prime or keys.prime
+    public Result reconstruct(ShareSet shares) {
+        return reconstruct(shares.xs, shares.ys, prime != null ? prime : shares.prime);
+    }
+
+    // A share file in either format; only the k shares with the smallest x are read
+    public Result reconstruct(Path file) throws IOException {
+        return reconstruct(ShareReader.read(file.toString(), true));
+    }
+
+    public Result reconstruct(Reader json) throws IOException {
+        return reconstruct(ShareReader.read(json, true));
+    }
+
+    // JSON shares from position to limit of the buffer, which is left untouched
+    public Result reconstruct(ByteBuffer json) throws IOException {
+        return reconstruct(ShareReader.read(json.duplicate(), true));
+    }
+
+    // f(0) of every block of a multi-secret set, in block order, from one lookup of
+    // the weights (ColumnLagrange); blocks are spread over the pool when there is one
+    public Result[] reconstruct(BlockShares shares) {
+        BigInteger p = prime != null ? prime : shares.prime;
+        if (p != null) {
+            Lagrange.checkKnownPrime(p);
+        }
+        BigInteger[][] secrets = ColumnLagrange.atZero(shares.xs, shares.columns, p, weights, pool);
+        // Results never hand out their x's, so the blocks can share one copy
+        BigInteger[] used = shares.xs.clone();
+        Result[] results = new Result[secrets.length];
+        for (int b = 0; b < secrets.length; b++) {
+            results[b] = new Result(secrets[b], p, used, new int[0]);
+        }
+        return results;
+    }
+
+    // f(0) from every share of a set, tolerating up to (n - k) / 2 bad ones (GaoDecoder);
+    // the set must carry k and should be read with selectK off
+    public Result decode(ShareSet shares) {
+        if (shares.k < 1) {
+            throw new IllegalArgumentException("Share set must contain k");
+        }
+        BigInteger p = prime != null ? prime : shares.prime;
+        if (p != null) {
+            Lagrange.checkKnownPrime(p);
+        }
+        GaoDecoder.Result decoded = GaoDecoder.reconstruct(shares.xs, shares.ys, shares.k, p);
+        BigInteger[] used = new BigInteger[decoded.selected.length];
+        for (int i = 0; i < used.length; i++) {
+            used[i] = shares.xs[decoded.selected[i]];
+        }
+        return new Result(decoded.secret, p, used, decoded.inconsistent);
+    }
+
+    // Cached x-sets and their hit rate, for monitoring
+    public WeightCache weights() {
+        return weights;
+    }
+
+    @Override
+    public void close() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    // The outcome of one reconstruction; immutable
+    public static final class Result {
+        // f(0) = numerator / denominator, reduced, the denominator positive; over GF(p)
+        // the denominator is 1 and the numerator in [0, p)
+        public final BigInteger numerator;
+        public final BigInteger denominator;
+        // The field modulus, null over the rationals
+        public final BigInteger prime;
+        // x's of the shares f(0) was computed from
+        private final BigInteger[] xs;
+        // decode only: indices of shares that disagree with the decoded polynomial
+        private final int[] inconsistent;
+
+        Result(BigInteger[] secret, BigInteger prime, BigInteger[] xs, int[] inconsistent) {
+            this.numerator = secret[0];
+            this.denominator = secret[1];
+            this.prime = prime;
+            this.xs = xs;
+            this.inconsistent = inconsistent;
+        }
+
+        public boolean isInteger() {
+            return denominator.equals(BigInteger.ONE);
+        }
+
+        // f(0) as an integer; ArithmeticException when the shares interpolate to a
+        // fraction (shares of different polynomials, or damaged ones)
+        public BigInteger secret() {
+            if (!isInteger()) {
+                throw new ArithmeticException("Secret is not an integer: " + this);
+            }
+            return numerator;
+        }
+
+        public BigInteger[] xs() {
+            return xs.clone();
+        }
+
+        public int[] inconsistent() {
+            return inconsistent.clone();
+        }
+
+        public String toString(int base) {
+            String n = BaseConversion.toString(numerator, base);
+            return isInteger() ? n : n + "/" + BaseConversion.toString(denominator, base);
+        }
+
+        @Override
+        public String toString() {
+            return toString(10);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Result)) return false;
+            Result other = (Result) o;
+            return numerator.equals(other.numerator) && denominator.equals(other.denominator)
+                    && (prime == null ? other.prime == null : prime.equals(other.prime))
+                    && Arrays.equals(xs, other.xs) && Arrays.equals(inconsistent, other.inconsistent);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * numerator.hashCode() + denominator.hashCode();
+        }
+    }
+}
@@ -0,0 +1,106 @@
+import java.io.*;
+import java.math.BigInteger;
+
+// Buffered ASCII output for results and point lists.
+//
+// Numbers are formatted straight into a reusable char buffer (BaseConversion.format,
+// divide-and-conquer for large magnitudes) and copied into a byte buffer that is
+// written out in large blocks, so printing k points never builds per-point Strings.
+public final class ResultWriter implements Closeable, Flushable {
+
+    private static final byte[] NEWLINE = System.lineSeparator().getBytes();
+
+    private final OutputStream out;
+    private final byte[] buffer;
+    private int count;
+    private char[] digits = new char[64];
+
+    public ResultWriter(OutputStream out) {
+        this(out, 1 << 16);
+    }
+
+    public ResultWriter(OutputStream out, int bufferSize) {
+        this.out = out;
+        this.buffer = new byte[bufferSize];
+    }
+
+    public ResultWriter print(char c) throws IOException {
+        if (count == buffer.length) {
+            flushBuffer();
+        }
+        buffer[count++] = (byte) c;
+        return this;
+    }
+
+    public ResultWriter print(String s) throws IOException {
+        for (int i = 0; i < s.length(); i++) {
+            print(s.charAt(i));
+        }
+        return this;
+    }
+
+    public ResultWriter print(long value) throws IOException {
+        return print(BigInteger.valueOf(value), 10);
+    }
+
+    public ResultWriter print(BigInteger value) throws IOException {
+        return print(value, 10);
+    }
+
+    // Prints value in the given base, lowercase digits, no prefix
+    public ResultWriter print(BigInteger value, int base) throws IOException {
+        int needed = BaseConversion.maxDigits(value, base);
+        if (digits.length < needed) {
+            digits = new char[Math.max(needed, digits.length * 2)];
+        }
+        int start = BaseConversion.format(value, base, digits, digits.length);
+        return write(digits, start, digits.length - start);
+    }
+
+    public ResultWriter println() throws IOException {
+        for (byte b : NEWLINE) {
+            print((char) b);
+        }
+        return this;
+    }
+
+    public ResultWriter println(String s) throws IOException {
+        return print(s).println();
+    }
+
+    // Narrows ASCII chars into the byte buffer, flushing whenever it fills
+    private ResultWriter write(char[] chars, int offset, int length) throws IOException {
+        while (length > 0) {
+            if (count == buffer.length) {
+                flushBuffer();
+            }
+            int n = Math.min(length, buffer.length - count);
+            for (int i = 0; i < n; i++) {
+                buffer[count + i] = (byte) chars[offset + i];
+            }
+            count += n;
+            offset += n;
+            length -= n;
+        }
+        return this;
+    }
+
+    private void flushBuffer() throws IOException {
+        if (count > 0) {
+            out.write(buffer, 0, count);
+            count = 0;
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        flushBuffer();
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+        out.close();
+    }
+}
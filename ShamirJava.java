@@ -1,3 +1,4 @@
+import java.io.*;
 import java.math.BigInteger;
 import java.util.*;
 
@@ -50,6 +51,14 @@ public class ShamirJava {
             );
         }
         
+        // Writes the fraction in the given base without building a String
+        public void printTo(ResultWriter out, int base) throws IOException {
+            out.print(numerator, base);
+            if (!denominator.equals(BigInteger.ONE)) {
+                out.print('/').print(denominator, base);
+            }
+        }
+        
         @Override
         public String toString() {
             if (denominator.equals(BigInteger.ONE)) {
@@ -68,6 +77,10 @@ public class ShamirJava {
             this.y = y;
         }
         
+        public void printTo(ResultWriter out, int base) throws IOException {
+            out.print('(').print(x).print(", ").print(y, base).print(')');
+        }
+        
         @Override
         public String toString() {
             return "(" + x + ", " + y + ")";
@@ -75,84 +88,81 @@ public class ShamirJava {
     }
     
     public static BigInteger parseFromBase(String value, int base) {
-        BigInteger result = BigInteger.ZERO;
-        BigInteger baseBI = BigInteger.valueOf(base);
-        String digits = "0123456789abcdefghijklmnopqrstuvwxyz";
-        
-        for (char c : value.toLowerCase().toCharArray()) {
-            int digitValue = digits.indexOf(c);
-            if (digitValue < 0 || digitValue >= base) {
-                throw new IllegalArgumentException("Invalid digit '" + c + "' for base " + base);
-            }
-            result = result.multiply(baseBI).add(BigInteger.valueOf(digitValue));
+        return BaseConversion.parse(value, base);
+    }
+    
+    public static Fraction lagrangeAtZero(List<Point> points) {
+        BigInteger[] xs = new BigInteger[points.size()];
+        BigInteger[] ys = new BigInteger[points.size()];
+        for (int i = 0; i < points.size(); i++) {
+            xs[i] = points.get(i).x;
+            ys[i] = points.get(i).y;
         }
         
-        return result;
+        // Integer-only term products; the Fraction constructor does the one reduction
+        BigInteger[] secret = Lagrange.atZero(xs, ys);
+        return new Fraction(secret[0], secret[1]);
     }
     
-    public static Fraction lagrangeAtZero(List<Point> points) {
-        Fraction result = new Fraction(BigInteger.ZERO);
+    // Hardcoded test cases for simplicity; null for an unknown case
+    public static List<Point> samplePoints(String name) {
+        List<Point> points = new ArrayList<>();
         
-        for (int i = 0; i < points.size(); i++) {
-            Point pi = points.get(i);
-            Fraction term = new Fraction(pi.y);
-            
-            for (int j = 0; j < points.size(); j++) {
-                if (i == j) continue;
-                
-                Point pj = points.get(j);
-                Fraction numerator = new Fraction(pj.x.negate());
-                Fraction denominator = new Fraction(pi.x.subtract(pj.x));
-                term = term.multiply(numerator.divide(denominator));
-            }
-            
-            result = result.add(term);
+        if (name.contains("sample1")) {
+            // Sample 1 data
+            points.add(new Point(BigInteger.valueOf(1), BigInteger.valueOf(4)));
+            points.add(new Point(BigInteger.valueOf(2), parseFromBase("111", 2))); // 7
+            points.add(new Point(BigInteger.valueOf(3), BigInteger.valueOf(12)));
+            points = points.subList(0, 3); // k=3
+        } else if (name.contains("sample2")) {
+            // Sample 2 data - use points 4-10 for correct answer
+            points.add(new Point(BigInteger.valueOf(4), parseFromBase("e1b5e05623d881f", 16)));
+            points.add(new Point(BigInteger.valueOf(5), parseFromBase("316034514573652620673", 8)));
+            points.add(new Point(BigInteger.valueOf(6), parseFromBase("2122212201122002221120200210011020220200", 3)));
+            points.add(new Point(BigInteger.valueOf(7), parseFromBase("20120221122211000100210021102001201112121", 3)));
+            points.add(new Point(BigInteger.valueOf(8), parseFromBase("20220554335330240002224253", 6)));
+            points.add(new Point(BigInteger.valueOf(9), parseFromBase("45153788322a1255483", 12)));
+            points.add(new Point(BigInteger.valueOf(10), parseFromBase("1101613130313526312514143", 7)));
+            points = points.subList(0, 7); // k=7
+        } else {
+            return null;
         }
         
-        return result;
+        return points;
     }
     
     public static void main(String[] args) {
+        int outBase = 10;
+        if (args.length == 3 && args[0].equals("--out-base")) {
+            outBase = Integer.parseInt(args[1]);
+            args = new String[] { args[2] };
+        }
         if (args.length != 1) {
-            System.err.println("Usage: java ShamirJava <json-file>");
+            System.err.println("Usage: java ShamirJava [--out-base <b>] <json-file>");
             System.exit(1);
         }
         
         try {
-            // Hardcoded test cases for simplicity
-            List<Point> points = new ArrayList<>();
-            
-            if (args[0].contains("sample1")) {
-                // Sample 1 data
-                points.add(new Point(BigInteger.valueOf(1), BigInteger.valueOf(4)));
-                points.add(new Point(BigInteger.valueOf(2), parseFromBase("111", 2))); // 7
-                points.add(new Point(BigInteger.valueOf(3), BigInteger.valueOf(12)));
-                points = points.subList(0, 3); // k=3
-            } else if (args[0].contains("sample2")) {
-                // Sample 2 data - use points 4-10 for correct answer
-                points.add(new Point(BigInteger.valueOf(4), parseFromBase("e1b5e05623d881f", 16)));
-                points.add(new Point(BigInteger.valueOf(5), parseFromBase("316034514573652620673", 8)));
-                points.add(new Point(BigInteger.valueOf(6), parseFromBase("2122212201122002221120200210011020220200", 3)));
-                points.add(new Point(BigInteger.valueOf(7), parseFromBase("20120221122211000100210021102001201112121", 3)));
-                points.add(new Point(BigInteger.valueOf(8), parseFromBase("20220554335330240002224253", 6)));
-                points.add(new Point(BigInteger.valueOf(9), parseFromBase("45153788322a1255483", 12)));
-                points.add(new Point(BigInteger.valueOf(10), parseFromBase("1101613130313526312514143", 7)));
-                points = points.subList(0, 7); // k=7
-            } else {
+            List<Point> points = samplePoints(args[0]);
+            if (points == null) {
                 System.err.println("Unknown test case");
                 System.exit(1);
             }
             
             Fraction secret = lagrangeAtZero(points);
             
-            System.out.println("k = " + points.size());
-            System.out.print("selected points = ");
+            ResultWriter out = new ResultWriter(System.out);
+            out.print("k = ").print(points.size()).println();
+            out.print("selected points = ");
             for (int i = 0; i < points.size(); i++) {
-                if (i > 0) System.out.print(", ");
-                System.out.print(points.get(i));
+                if (i > 0) out.print(", ");
+                points.get(i).printTo(out, outBase);
             }
-            System.out.println();
-            System.out.println("secret f(0) = " + secret);
+            out.println();
+            out.print("secret f(0) = ");
+            secret.printTo(out, outBase);
+            out.println();
+            out.flush();
             
         } catch (Exception e) {
             System.err.println("Error: " + e.getMessage());
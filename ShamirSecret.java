@@ -70,6 +70,14 @@ public class ShamirSecret {
             return denominator.equals(BigInteger.ONE);
         }
         
+        // Writes the fraction in the given base without building a String
+        public void printTo(ResultWriter out, int base) throws IOException {
+            out.print(numerator, base);
+            if (!isInteger()) {
+                out.print('/').print(denominator, base);
+            }
+        }
+        
         @Override
         public String toString() {
             if (isInteger()) {
@@ -89,6 +97,10 @@ public class ShamirSecret {
             this.y = y;
         }
         
+        public void printTo(ResultWriter out, int base) throws IOException {
+            out.print('(').print(x).print(", ").print(y, base).print(')');
+        }
+        
         @Override
         public String toString() {
             return "(" + x + ", " + y + ")";
@@ -97,23 +109,7 @@ public class ShamirSecret {
     
     // Parse integer from given base
     public static BigInteger parseFromBase(String value, int base) {
-        if (base < 2 || base > 36) {
-            throw new IllegalArgumentException("Unsupported base: " + base);
-        }
-        
-        BigInteger result = BigInteger.ZERO;
-        BigInteger baseBI = BigInteger.valueOf(base);
-        String digits = "0123456789abcdefghijklmnopqrstuvwxyz";
-        
-        for (char c : value.toLowerCase().toCharArray()) {
-            int digitValue = digits.indexOf(c);
-            if (digitValue < 0 || digitValue >= base) {
-                throw new IllegalArgumentException("Invalid digit '" + c + "' for base " + base);
-            }
-            result = result.multiply(baseBI).add(BigInteger.valueOf(digitValue));
-        }
-        
-        return result;
+        return BaseConversion.parse(value, base);
     }
     
     // Extract points from JSON
@@ -141,57 +137,265 @@ public class ShamirSecret {
         return points.subList(0, Math.min(k, points.size()));
     }
     
+    // Points from a streamed share set, already sorted by x and trimmed to k
+    public static List<Point> extractPoints(ShareSet shares) {
+        List<Point> points = new ArrayList<>(shares.size());
+        for (int i = 0; i < shares.size(); i++) {
+            points.add(new Point(shares.xs[i], shares.ys[i]));
+        }
+        return points;
+    }
+    
+    // Optional prime modulus from the keys block, null when absent
+    public static BigInteger extractPrime(JsonObject json) {
+        JsonObject keys = json.getAsJsonObject("keys");
+        if (!keys.has("prime")) {
+            return null;
+        }
+        return keys.get("prime").getAsBigInteger();
+    }
+    
     // Lagrange interpolation at x = 0
     public static Fraction lagrangeAtZero(List<Point> points) {
-        Fraction result = new Fraction(0);
+        return lagrangeAtZero(points, (ReconstructionStats) null);
+    }
+    
+    // As lagrangeAtZero, recording the widest intermediate into stats when not null
+    public static Fraction lagrangeAtZero(List<Point> points, ReconstructionStats stats) {
+        BigInteger[] xs = new BigInteger[points.size()];
+        BigInteger[] ys = new BigInteger[points.size()];
+        for (int i = 0; i < points.size(); i++) {
+            xs[i] = points.get(i).x;
+            ys[i] = points.get(i).y;
+        }
         
+        // Integer-only term products; the Fraction constructor does the one reduction
+        BigInteger[] secret = Lagrange.atZero(xs, ys, stats);
+        return new Fraction(secret[0], secret[1]);
+    }
+    
+    // Lagrange interpolation at x = 0 with the terms spread over threads; the same
+    // reduced fraction as lagrangeAtZero
+    public static Fraction lagrangeAtZero(List<Point> points, int threads) {
+        BigInteger[] xs = new BigInteger[points.size()];
+        BigInteger[] ys = new BigInteger[points.size()];
         for (int i = 0; i < points.size(); i++) {
-            Point pi = points.get(i);
-            Fraction term = new Fraction(pi.y);
-            
-            for (int j = 0; j < points.size(); j++) {
-                if (i == j) continue;
-                
-                Point pj = points.get(j);
-                // term *= (0 - xj) / (xi - xj)
-                Fraction numerator = new Fraction(pj.x.negate());
-                Fraction denominator = new Fraction(pi.x.subtract(pj.x));
-                term = term.multiply(numerator.divide(denominator));
-            }
-            
-            result = result.add(term);
+            xs[i] = points.get(i).x;
+            ys[i] = points.get(i).y;
         }
         
-        return result;
+        BigInteger[] secret = ParallelLagrange.atZero(xs, ys, threads);
+        return new Fraction(secret[0], secret[1]);
+    }
+    
+    // Lagrange interpolation at x = 0 over the prime field GF(p)
+    public static BigInteger lagrangeAtZeroMod(List<Point> points, BigInteger prime) {
+        return lagrangeAtZeroMod(points, prime, (ReconstructionStats) null);
+    }
+    
+    public static BigInteger lagrangeAtZeroMod(List<Point> points, BigInteger prime, ReconstructionStats stats) {
+        BigInteger[] xs = new BigInteger[points.size()];
+        BigInteger[] ys = new BigInteger[points.size()];
+        for (int i = 0; i < points.size(); i++) {
+            xs[i] = points.get(i).x;
+            ys[i] = points.get(i).y;
+        }
+        
+        return Lagrange.atZeroMod(xs, ys, prime, stats);
+    }
+    
+    public static BigInteger lagrangeAtZeroMod(List<Point> points, BigInteger prime, int threads) {
+        BigInteger[] xs = new BigInteger[points.size()];
+        BigInteger[] ys = new BigInteger[points.size()];
+        for (int i = 0; i < points.size(); i++) {
+            xs[i] = points.get(i).x;
+            ys[i] = points.get(i).y;
+        }
+        
+        return ParallelLagrange.atZeroMod(xs, ys, prime, threads);
     }
     
     public static void main(String[] args) {
-        if (args.length != 1) {
-            System.err.println("Usage: java ShamirSecret <json-file>");
+        // Batch mode: a directory or manifest of share files in one JVM
+        if (args.length > 0 && args[0].equals("--batch")) {
+            BatchRunner.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        // Split mode: generate shares for a secret
+        if (args.length > 0 && args[0].equals("--split")) {
+            ShamirSplit.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        // File mode: share or recombine arbitrary files byte by byte over GF(2^8)
+        if (args.length > 0 && args[0].equals("--files")) {
+            ShamirFiles.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        // Server mode: stay resident and answer share sets over a local socket
+        if (args.length > 0 && args[0].equals("--serve")) {
+            ShamirServer.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        // Block mode: every block of a multi-secret file from one set of weights
+        if (args.length > 0 && args[0].equals("--blocks")) {
+            ColumnLagrange.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        // Refresh mode: new shares of the same secret, in place or at new x's
+        if (args.length > 0 && args[0].equals("--refresh")) {
+            ShareRefresh.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        // Worker mode: sum slices of Lagrange terms for a --workers coordinator
+        if (args.length > 0 && args[0].equals("--worker")) {
+            ShamirWorker.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        
+        String file = null;
+        String primeArg = null;
+        String outBaseArg = "10";
+        String workersArg = null;
+        boolean robust = false;
+        boolean showStats = false;
+        int threads = 1;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--robust")) {
+                robust = true;
+            } else if (args[i].equals("--stats")) {
+                showStats = true;
+            } else if (args[i].equals("--threads") && i + 1 < args.length) {
+                threads = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--prime") && i + 1 < args.length) {
+                primeArg = args[++i];
+            } else if (args[i].equals("--out-base") && i + 1 < args.length) {
+                outBaseArg = args[++i];
+            } else if (args[i].equals("--workers") && i + 1 < args.length) {
+                workersArg = args[++i];
+            } else if (file == null && !args[i].startsWith("--")) {
+                file = args[i];
+            } else {
+                file = null;
+                break;
+            }
+        }
+        if (file == null) {
+            System.err.println("Usage: java ShamirSecret [--robust] [--threads <n>] [--prime <p>] [--out-base <b>] [--stats] [--workers <addr,...>] <json-file>");
+            System.err.println("       java ShamirSecret --batch [--threads <n>] [--prime <p>] [--out <file.jsonl>] [--stats] <dir|manifest>");
+            System.err.println("       java ShamirSecret --split --secret <s> --k <k> --n <n> [--prime <p>] [--base <b>|random] [--out <file.json>]");
+            System.err.println("       java ShamirSecret --files split --k <k> --n <n> [--threads <n>] [--out-dir <dir>] <file>");
+            System.err.println("       java ShamirSecret --files combine [--threads <n>] --out <file> <share>...");
+            System.err.println("       java ShamirSecret --serve [--port <n> | --socket <path>] [--prime <p>]");
+            System.err.println("       java ShamirSecret --worker [--port <n> | --socket <path>] [--threads <n>]");
+            System.err.println("       java ShamirSecret --blocks [--threads <n>] [--prime <p>] [--out-base <b>] <blocks.json>");
+            System.err.println("       java ShamirSecret --refresh [--k <k>] [--n <n>] [--prime <p>] [--base <b>] [--out <file.json>] <json-file>");
             System.exit(1);
         }
         
         try {
-            // Read JSON file
-            FileReader reader = new FileReader(args[0]);
-            JsonObject json = JsonParser.parseReader(reader).getAsJsonObject();
-            reader.close();
+            // Map the JSON file, keeping only the k shares with the smallest x (robust
+            // mode needs every share); their values are converted on --threads threads.
+            // Phases are counted when --stats asks for the summary or a flight
+            // recording has the shamir events enabled.
+            ReconstructionStats stats = ReconstructionStats.start(file, showStats);
+            ShareSet shares = ShareReader.readMapped(file, !robust, threads, stats);
+            List<Point> points = extractPoints(shares);
             
-            // Extract points
-            List<Point> points = extractPoints(json);
+            // A prime on the command line overrides keys.prime
+            BigInteger prime = primeArg != null ? new BigInteger(primeArg) : shares.prime;
+            if (prime != null) {
+                Lagrange.checkPrime(prime);
+            }
             
             // Calculate secret
-            Fraction secret = lagrangeAtZero(points);
+            if (stats != null) {
+                stats.enter(ReconstructionStats.INTERPOLATE);
+                stats.count(ReconstructionStats.INTERPOLATE, 0, shares.size());
+            }
+            Object secret;
+            List<Point> inconsistent = null;
+            if (robust) {
+                GaoDecoder.Result result = GaoDecoder.reconstruct(shares.xs, shares.ys, shares.k, prime);
+                inconsistent = new ArrayList<>();
+                for (int i : result.inconsistent) {
+                    inconsistent.add(points.get(i));
+                }
+                List<Point> selected = new ArrayList<>();
+                for (int i : result.selected) {
+                    selected.add(points.get(i));
+                }
+                points = selected;
+                secret = prime != null ? result.secret[0] : new Fraction(result.secret[0], result.secret[1]);
+                if (stats != null) {
+                    stats.bits(result.secret[0]);
+                    stats.bits(result.secret[1]);
+                }
+            } else if (workersArg != null) {
+                // Each worker sums a slice of the terms; addresses are port, host:port or a socket path
+                try (DistributedLagrange workers = new DistributedLagrange(Arrays.asList(workersArg.split(",")))) {
+                    if (prime != null) {
+                        secret = workers.atZeroMod(shares.xs, shares.ys, prime);
+                    } else {
+                        BigInteger[] fraction = workers.atZero(shares.xs, shares.ys);
+                        secret = new Fraction(fraction[0], fraction[1]);
+                    }
+                }
+                if (stats != null) {
+                    stats.bits(prime != null ? (BigInteger) secret : ((Fraction) secret).numerator);
+                }
+            } else if (threads > 1) {
+                secret = prime != null ? lagrangeAtZeroMod(points, prime, threads) : lagrangeAtZero(points, threads);
+                if (stats != null) {
+                    stats.bits(prime != null ? (BigInteger) secret : ((Fraction) secret).numerator);
+                }
+            } else if (prime != null) {
+                secret = lagrangeAtZeroMod(points, prime, stats);
+            } else {
+                secret = lagrangeAtZero(points, stats);
+            }
+            
+            if (stats != null) {
+                stats.enter(ReconstructionStats.OUTPUT);
+                stats.count(ReconstructionStats.OUTPUT, 0, points.size());
+            }
             
             // Output results
-            System.out.println("k = " + points.size());
-            System.out.print("selected points = ");
+            int outBase = Integer.parseInt(outBaseArg);
+            ResultWriter out = new ResultWriter(System.out);
+            out.print("k = ").print(points.size()).println();
+            if (prime != null) {
+                out.print("prime p = ").print(prime).println();
+            }
+            if (inconsistent != null) {
+                out.print("inconsistent shares = ");
+                if (inconsistent.isEmpty()) out.print("none");
+                for (int i = 0; i < inconsistent.size(); i++) {
+                    if (i > 0) out.print(", ");
+                    inconsistent.get(i).printTo(out, outBase);
+                }
+                out.println();
+            }
+            out.print("selected points = ");
             for (int i = 0; i < points.size(); i++) {
-                if (i > 0) System.out.print(", ");
-                System.out.print(points.get(i));
+                if (i > 0) out.print(", ");
+                points.get(i).printTo(out, outBase);
+            }
+            out.println();
+            out.print("secret f(0) = ");
+            if (secret instanceof Fraction) {
+                ((Fraction) secret).printTo(out, outBase);
+            } else {
+                out.print((BigInteger) secret, outBase);
+            }
+            out.println();
+            out.flush();
+            
+            if (stats != null) {
+                stats.finish();
+                if (showStats) {
+                    System.err.println(stats.toJson());
+                }
             }
-            System.out.println();
-            System.out.println("secret f(0) = " + secret);
             
         } catch (Exception e) {
             System.err.println("Error: " + e.getMessage());
@@ -62,6 +62,14 @@ public class ShamirSecretSimple {
             return denominator.equals(BigInteger.ONE);
         }
         
+        // Writes the fraction in the given base without building a String
+        public void printTo(ResultWriter out, int base) throws IOException {
+            out.print(numerator, base);
+            if (!isInteger()) {
+                out.print('/').print(denominator, base);
+            }
+        }
+        
         @Override
         public String toString() {
             if (isInteger()) {
@@ -81,6 +89,10 @@ public class ShamirSecretSimple {
             this.y = y;
         }
         
+        public void printTo(ResultWriter out, int base) throws IOException {
+            out.print('(').print(x).print(", ").print(y, base).print(')');
+        }
+        
         @Override
         public String toString() {
             return "(" + x + ", " + y + ")";
@@ -89,22 +101,12 @@ public class ShamirSecretSimple {
     
     // Parse integer from given base
     public static BigInteger parseFromBase(String value, int base) {
-        BigInteger result = BigInteger.ZERO;
-        BigInteger baseBI = BigInteger.valueOf(base);
-        String digits = "0123456789abcdefghijklmnopqrstuvwxyz";
-        
-        for (char c : value.toLowerCase().toCharArray()) {
-            int digitValue = digits.indexOf(c);
-            if (digitValue < 0 || digitValue >= base) {
-                throw new IllegalArgumentException("Invalid digit '" + c + "' for base " + base);
-            }
-            result = result.multiply(baseBI).add(BigInteger.valueOf(digitValue));
-        }
-        
-        return result;
+        return BaseConversion.parse(value, base);
     }
     
-    // Simple JSON parser for our specific format
+    // Simple JSON parser for our specific format.
+    // Superseded by ShareReader, which streams instead of splitting one big String.
+    @Deprecated
     public static Map<String, Object> parseSimpleJson(String jsonContent) {
         Map<String, Object> result = new HashMap<>();
         
@@ -143,10 +145,9 @@ public class ShamirSecretSimple {
             section = section.trim();
             if (section.isEmpty()) continue;
             
-            // Extract point key (x coordinate)
-            int keyStart = section.indexOf("\"");
-            if (keyStart == -1) keyStart = 0;
-            else keyStart++;
+            // Extract point key (x coordinate); the split consumed the opening
+            // quote of every section after the first
+            int keyStart = section.startsWith("\"") ? 1 : 0;
             int keyEnd = section.indexOf("\"", keyStart);
             if (keyEnd == -1) continue;
             
@@ -179,7 +180,17 @@ public class ShamirSecretSimple {
         return result;
     }
     
+    // Points from a streamed share set, already sorted by x and trimmed to k
+    public static List<Point> extractPoints(ShareSet shares) {
+        List<Point> points = new ArrayList<>(shares.size());
+        for (int i = 0; i < shares.size(); i++) {
+            points.add(new Point(shares.xs[i], shares.ys[i]));
+        }
+        return points;
+    }
+    
     // Extract points from parsed JSON
+    @Deprecated
     @SuppressWarnings("unchecked")
     public static List<Point> extractPoints(Map<String, Object> json) {
         Map<String, Integer> keys = (Map<String, Integer>) json.get("keys");
@@ -206,62 +217,87 @@ public class ShamirSecretSimple {
     
     // Lagrange interpolation at x = 0
     public static Fraction lagrangeAtZero(List<Point> points) {
-        Fraction result = new Fraction(0);
+        BigInteger[] xs = new BigInteger[points.size()];
+        BigInteger[] ys = new BigInteger[points.size()];
+        for (int i = 0; i < points.size(); i++) {
+            xs[i] = points.get(i).x;
+            ys[i] = points.get(i).y;
+        }
         
+        // Integer-only term products; the Fraction constructor does the one reduction
+        BigInteger[] secret = Lagrange.atZero(xs, ys);
+        return new Fraction(secret[0], secret[1]);
+    }
+    
+    // Lagrange interpolation at x = 0 over the prime field GF(p)
+    public static BigInteger lagrangeAtZeroMod(List<Point> points, BigInteger prime) {
+        BigInteger[] xs = new BigInteger[points.size()];
+        BigInteger[] ys = new BigInteger[points.size()];
         for (int i = 0; i < points.size(); i++) {
-            Point pi = points.get(i);
-            Fraction term = new Fraction(pi.y);
-            
-            for (int j = 0; j < points.size(); j++) {
-                if (i == j) continue;
-                
-                Point pj = points.get(j);
-                // term *= (0 - xj) / (xi - xj)
-                Fraction numerator = new Fraction(pj.x.negate());
-                Fraction denominator = new Fraction(pi.x.subtract(pj.x));
-                term = term.multiply(numerator.divide(denominator));
-            }
-            
-            result = result.add(term);
+            xs[i] = points.get(i).x;
+            ys[i] = points.get(i).y;
         }
         
-        return result;
+        return Lagrange.atZeroMod(xs, ys, prime);
     }
     
     public static void main(String[] args) {
-        if (args.length != 1) {
-            System.err.println("Usage: java ShamirSecretSimple <json-file>");
+        String file = null;
+        String primeArg = null;
+        String outBaseArg = "10";
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--prime") && i + 1 < args.length) {
+                primeArg = args[++i];
+            } else if (args[i].equals("--out-base") && i + 1 < args.length) {
+                outBaseArg = args[++i];
+            } else if (file == null && !args[i].startsWith("--")) {
+                file = args[i];
+            } else {
+                file = null;
+                break;
+            }
+        }
+        if (file == null) {
+            System.err.println("Usage: java ShamirSecretSimple [--prime <p>] [--out-base <b>] <json-file>");
             System.exit(1);
         }
         
         try {
-            // Read JSON file
-            StringBuilder content = new StringBuilder();
-            BufferedReader reader = new BufferedReader(new FileReader(args[0]));
-            String line;
-            while ((line = reader.readLine()) != null) {
-                content.append(line);
-            }
-            reader.close();
-            
-            // Parse JSON
-            Map<String, Object> json = parseSimpleJson(content.toString());
-            
-            // Extract points
-            List<Point> points = extractPoints(json);
+            // Stream the JSON file, keeping only the k shares with the smallest x
+            ShareSet shares = ShareReader.read(file, true);
+            List<Point> points = extractPoints(shares);
             
             // Calculate secret
-            Fraction secret = lagrangeAtZero(points);
+            BigInteger prime = primeArg != null ? new BigInteger(primeArg) : shares.prime;
+            Object secret;
+            if (prime != null) {
+                Lagrange.checkPrime(prime);
+                secret = lagrangeAtZeroMod(points, prime);
+            } else {
+                secret = lagrangeAtZero(points);
+            }
             
             // Output results
-            System.out.println("k = " + points.size());
-            System.out.print("selected points = ");
+            int outBase = Integer.parseInt(outBaseArg);
+            ResultWriter out = new ResultWriter(System.out);
+            out.print("k = ").print(points.size()).println();
+            if (prime != null) {
+                out.print("prime p = ").print(prime).println();
+            }
+            out.print("selected points = ");
             for (int i = 0; i < points.size(); i++) {
-                if (i > 0) System.out.print(", ");
-                System.out.print(points.get(i));
+                if (i > 0) out.print(", ");
+                points.get(i).printTo(out, outBase);
+            }
+            out.println();
+            out.print("secret f(0) = ");
+            if (secret instanceof Fraction) {
+                ((Fraction) secret).printTo(out, outBase);
+            } else {
+                out.print((BigInteger) secret, outBase);
             }
-            System.out.println();
-            System.out.println("secret f(0) = " + secret);
+            out.println();
+            out.flush();
             
         } catch (Exception e) {
             System.err.println("Error: " + e.getMessage());
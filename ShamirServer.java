@@ -0,0 +1,260 @@
+import java.io.*;
+import java.math.BigInteger;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.Arrays;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Long-running reconstruction server on a local TCP port or Unix-domain socket.
+//
+// A client writes share-set JSON documents (the same keys/base/value format as a
+// share file, compact or pretty-printed) back to back on one connection; a document
+// ends where its outermost object closes. Each one is answered with a single JSON
+// line carrying the same fields as a BatchRunner line, numbered per connection:
+//   {"request":1,"k":3,"x":[1,2,3],"secret":"3","parseMicros":..,"solveMicros":..}
+// or {"request":1,"error":"..."}. The JVM, its JIT-compiled paths and the shared
+// WeightCache stay warm between requests, so a request costs a parse and a
+// reconstruction rather than a JVM start.
+//
+// Connections run on virtual threads where the runtime has them (JDK 21+) and on a
+// cached pool of daemon platform threads otherwise.
+public class ShamirServer implements Closeable {
+
+    public static final int DEFAULT_PORT = 7070;
+
+    // A document larger than this closes the connection instead of growing the buffer
+    static final int MAX_REQUEST = 64 << 20;
+
+    private final ServerSocketChannel server;
+    private final Path socketFile;
+    private final BatchRunner solver;
+    private final ExecutorService connections = connectionExecutor();
+    private final AtomicInteger served = new AtomicInteger();
+
+    private ShamirServer(ServerSocketChannel server, Path socketFile, BigInteger prime) {
+        this.server = server;
+        this.socketFile = socketFile;
+        this.solver = new BatchRunner(1, prime);
+    }
+
+    // Listens on the loopback interface; port 0 picks a free one
+    public static ShamirServer tcp(int port, BigInteger prime) throws IOException {
+        ServerSocketChannel channel = ServerSocketChannel.open();
+        channel.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+        return new ShamirServer(channel, null, prime);
+    }
+
+    // Listens on a Unix-domain socket at path, replacing a stale socket file
+    public static ShamirServer unix(Path path, BigInteger prime) throws IOException {
+        Files.deleteIfExists(path);
+        ServerSocketChannel channel = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        channel.bind(UnixDomainSocketAddress.of(path));
+        return new ShamirServer(channel, path, prime);
+    }
+
+    public SocketAddress address() throws IOException {
+        return server.getLocalAddress();
+    }
+
+    // Requests answered so far, across all connections
+    public int served() {
+        return served.get();
+    }
+
+    // Accepts connections until close() is called
+    public void serve() throws IOException {
+        try {
+            while (true) {
+                SocketChannel client = server.accept();
+                connections.execute(() -> handle(client));
+            }
+        } catch (ClosedChannelException e) {
+            // close() was called
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        server.close();
+        connections.shutdownNow();
+        if (socketFile != null) {
+            Files.deleteIfExists(socketFile);
+        }
+    }
+
+    private void handle(SocketChannel client) {
+        try (client;
+             InputStream in = new BufferedInputStream(Channels.newInputStream(client));
+             OutputStream out = new BufferedOutputStream(Channels.newOutputStream(client))) {
+            Documents documents = new Documents(in);
+            int request = 0;
+            boolean open = true;
+            while (open) {
+                String answer;
+                try {
+                    ByteBuffer document = documents.next();
+                    if (document == null) break;
+                    answer = answer(++request, document);
+                } catch (IllegalArgumentException e) {
+                    // Unframeable input: report it and drop the connection
+                    StringBuilder line = new StringBuilder(64);
+                    line.append("{\"request\":").append(++request).append(",\"error\":");
+                    BatchRunner.appendString(line, e.getMessage());
+                    answer = line.append('}').toString();
+                    open = false;
+                }
+                out.write(answer.getBytes(StandardCharsets.US_ASCII));
+                out.write('\n');
+                out.flush();
+                served.incrementAndGet();
+            }
+        } catch (IOException e) {
+            // Client went away
+        }
+    }
+
+    String answer(int request, ByteBuffer document) {
+        StringBuilder line = new StringBuilder(128);
+        line.append("{\"request\":").append(request);
+        try {
+            long start = System.nanoTime();
+            ShareSet shares = ShareReader.read(document, true);
+            solver.appendResult(line, shares, start);
+        } catch (Exception e) {
+            line.append(",\"error\":");
+            BatchRunner.appendString(line, e.getClass().getSimpleName() + ": " + e.getMessage());
+        }
+        return line.append('}').toString();
+    }
+
+    // Newer runtimes have Executors.newVirtualThreadPerTaskExecutor; this one is built
+    // for JDK 17, so it is looked up rather than called
+    static ExecutorService connectionExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool(task -> {
+                Thread thread = new Thread(task, "shamir-connection");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    // Splits a byte stream into top-level JSON objects by tracking brace depth outside
+    // strings; whitespace between objects is skipped
+    static final class Documents {
+        private final InputStream in;
+        private byte[] buffer = new byte[8192];
+
+        Documents(InputStream in) {
+            this.in = in;
+        }
+
+        // The next object, or null at end of stream between objects; input that is not
+        // a sequence of objects is an IllegalArgumentException
+        ByteBuffer next() throws IOException {
+            int c;
+            do {
+                c = in.read();
+                if (c < 0) return null;
+            } while (c == ' ' || c == '\t' || c == '\r' || c == '\n');
+            if (c != '{') {
+                throw new IllegalArgumentException("Expected '{' at the start of a request");
+            }
+
+            int length = 0;
+            int depth = 0;
+            boolean inString = false;
+            boolean escaped = false;
+            while (true) {
+                if (length == buffer.length) {
+                    if (length >= MAX_REQUEST) {
+                        throw new IllegalArgumentException("Request larger than " + MAX_REQUEST + " bytes");
+                    }
+                    buffer = Arrays.copyOf(buffer, length * 2);
+                }
+                buffer[length++] = (byte) c;
+
+                if (inString) {
+                    if (escaped) {
+                        escaped = false;
+                    } else if (c == '\\') {
+                        escaped = true;
+                    } else if (c == '"') {
+                        inString = false;
+                    }
+                } else if (c == '"') {
+                    inString = true;
+                } else if (c == '{') {
+                    depth++;
+                } else if (c == '}' && --depth == 0) {
+                    return ByteBuffer.wrap(buffer, 0, length);
+                }
+
+                c = in.read();
+                if (c < 0) {
+                    throw new EOFException("Connection closed inside a request");
+                }
+            }
+        }
+    }
+
+    public static void main(String[] args) {
+        int port = DEFAULT_PORT;
+        String socket = null;
+        String primeArg = null;
+        boolean valid = true;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--port") && i + 1 < args.length) {
+                port = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--socket") && i + 1 < args.length) {
+                socket = args[++i];
+            } else if (args[i].equals("--prime") && i + 1 < args.length) {
+                primeArg = args[++i];
+            } else {
+                valid = false;
+                break;
+            }
+        }
+        if (!valid) {
+            System.err.println("Usage: java ShamirServer [--port <n> | --socket <path>] [--prime <p>]");
+            System.exit(1);
+        }
+
+        try {
+            BigInteger prime = primeArg != null ? new BigInteger(primeArg) : null;
+            if (prime != null) {
+                Lagrange.checkPrime(prime);
+            }
+            ShamirServer server = socket != null
+                    ? unix(Paths.get(socket), prime)
+                    : tcp(port, prime);
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    server.close();
+                } catch (IOException e) {
+                    // exiting anyway
+                }
+                System.err.printf("%d requests served%n", server.served());
+            }));
+            System.err.println("Listening on " + server.address());
+            server.serve();
+        } catch (Exception e) {
+            System.err.println("Error: " + e.getMessage());
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,372 @@
+import java.io.*;
+import java.math.BigInteger;
+import java.nio.file.*;
+import java.security.SecureRandom;
+import java.util.ArrayDeque;
+import java.util.Random;
+import java.util.concurrent.*;
+import java.util.function.LongFunction;
+
+// Share generation: f(x) = secret + a1 x + ... + a(k-1) x^(k-1), written out as a
+// share file for x = 1..n.
+//
+// In a prime field the coefficients are uniform in [0, p); over the integers they are
+// drawn with a fixed bit length (integer shares only hide the secret statistically
+// and are meant for testing the combine side). The points are cut into chunks that a
+// ForkJoinPool evaluates and formats into byte arrays in parallel; chunks are written
+// in order as they finish, with a bounded number in flight, so the output streams in
+// the keys/base/value format ShareReader reads back.
+//
+// evaluate(x) is Horner's rule, on longs through PrimeField64 when p < 2^63. Within a
+// chunk the x's are consecutive, so a chunk evaluates its first k points that way,
+// turns them into a forward-difference table and then walks f(x + 1) from f(x) with
+// k - 1 modular additions: on longs, on fixed-width 64-bit limbs for larger primes,
+// or on BigIntegers over the integers.
+public final class ShamirSplit {
+
+    // Points per formatted chunk
+    static final int CHUNK = 4096;
+
+    // Thresholds up to this walk each chunk by differences; setting up the table costs
+    // k Horner evaluations, which larger k would not win back within a chunk
+    static final int MAX_DIFFERENCES_K = CHUNK / 8;
+
+    // Base 0 picks a random base in [2, 36] for every share
+    public static final int RANDOM_BASE = 0;
+
+    private final BigInteger[] coefficients;
+    private final BigInteger prime;
+    private final int reduceBits;
+    private final PrimeField64 field;
+    private final long[] montgomery;
+
+    // Draws the k - 1 random coefficients; bits sizes them when there is no prime
+    public ShamirSplit(BigInteger secret, int k, BigInteger prime, int bits, Random random) {
+        if (k < 1) {
+            throw new IllegalArgumentException("Threshold must be at least 1: " + k);
+        }
+        // Share values are written unsigned, so the secret is too
+        if (secret.signum() < 0) {
+            throw new IllegalArgumentException("Secret must be non-negative: " + secret);
+        }
+        if (prime != null) {
+            Lagrange.checkPrime(prime);
+            if (secret.compareTo(prime) >= 0) {
+                throw new IllegalArgumentException("Secret must lie in [0, p)");
+            }
+        }
+        this.prime = prime;
+        this.reduceBits = prime != null ? 4 * prime.bitLength() : 0;
+        this.coefficients = new BigInteger[k];
+        coefficients[0] = secret;
+        for (int j = 1; j < k; j++) {
+            BigInteger a;
+            if (prime != null) {
+                do {
+                    a = new BigInteger(prime.bitLength(), random);
+                } while (a.compareTo(prime) >= 0);
+            } else {
+                a = new BigInteger(bits, random);
+            }
+            coefficients[j] = a;
+        }
+
+        if (prime != null && PrimeField64.fits(prime)) {
+            field = new PrimeField64(prime.longValueExact());
+            montgomery = new long[k];
+            for (int j = 0; j < k; j++) {
+                montgomery[j] = field.toMontgomery(coefficients[j].longValueExact());
+            }
+        } else {
+            field = null;
+            montgomery = null;
+        }
+    }
+
+    public int threshold() {
+        return coefficients.length;
+    }
+
+    // f(x), reduced mod p in a prime field
+    public BigInteger evaluate(long x) {
+        if (field != null) {
+            return BigInteger.valueOf(field.horner(montgomery, x));
+        }
+        BigInteger bx = BigInteger.valueOf(x);
+        BigInteger y = BigInteger.ZERO;
+        for (int j = coefficients.length - 1; j >= 0; j--) {
+            y = y.multiply(bx).add(coefficients[j]);
+            // Multiplying by a small x is linear in y, a reduction is not: let y grow
+            // a few times past p before reducing
+            if (prime != null && y.bitLength() > reduceBits) {
+                y = y.mod(prime);
+            }
+        }
+        return prime != null ? y.mod(prime) : y;
+    }
+
+    // f(x) for any x, by Horner's rule on BigIntegers
+    public BigInteger evaluate(BigInteger x) {
+        BigInteger y = BigInteger.ZERO;
+        for (int j = coefficients.length - 1; j >= 0; j--) {
+            y = y.multiply(x).add(coefficients[j]);
+            if (prime != null) {
+                y = y.mod(prime);
+            }
+        }
+        return y;
+    }
+
+    // Throws IllegalArgumentException when write(n, base, ...) would
+    public void check(int n, int base) {
+        if (n < coefficients.length) {
+            throw new IllegalArgumentException("Need n >= k, got n = " + n + ", k = " + coefficients.length);
+        }
+        if (prime != null && BigInteger.valueOf(n).compareTo(prime) >= 0) {
+            throw new IllegalArgumentException("n must be below p so the x's stay distinct");
+        }
+        if (base != RANDOM_BASE && (base < 2 || base > 36)) {
+            throw new IllegalArgumentException("Base must be in [2, 36]: " + base);
+        }
+    }
+
+    // Writes the share file for x = 1..n, values in the given base or RANDOM_BASE
+    public void write(int n, int base, OutputStream out, int threads) throws IOException, InterruptedException {
+        check(n, base);
+
+        ResultWriter header = new ResultWriter(out, 256);
+        header.print("{\n  \"keys\": {\n    \"n\": ").print(n);
+        header.print(",\n    \"k\": ").print(coefficients.length);
+        if (prime != null) {
+            header.print(",\n    \"prime\": \"").print(prime).print('"');
+        }
+        header.print("\n  }").flush();
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            ArrayDeque<Future<byte[]>> pending = new ArrayDeque<>();
+            int next = 1;
+            while (next <= n || !pending.isEmpty()) {
+                while (next <= n && pending.size() < 2 * threads) {
+                    int from = next;
+                    int to = (int) Math.min((long) n + 1, (long) from + CHUNK);
+                    pending.add(pool.submit(() -> chunk(from, to, base)));
+                    next = to;
+                }
+                try {
+                    out.write(pending.poll().get());
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException(e.getCause());
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+        out.write("\n}\n".getBytes());
+        out.flush();
+    }
+
+    // Shares from..to-1, each preceded by the separator from the previous member
+    private byte[] chunk(int from, int to, int base) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream((to - from) * 64);
+        ResultWriter out = new ResultWriter(bytes, 1 << 14);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Differences walk = coefficients.length <= MAX_DIFFERENCES_K
+                ? new Differences(this::evaluate, from, coefficients.length, prime) : null;
+        for (int x = from; x < to; x++) {
+            BigInteger y;
+            if (walk != null) {
+                y = walk.current();
+                if (x + 1 < to) walk.step();
+            } else {
+                y = evaluate(x);
+            }
+            int b = base == RANDOM_BASE ? random.nextInt(2, 37) : base;
+            out.print(",\n  \"").print(x).print("\": {\n    \"base\": \"").print(b);
+            out.print("\",\n    \"value\": \"").print(y, b).print("\"\n  }");
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    // f(x0), f(x0 + 1), ... from the table d[j] = (delta^j f)(x): stepping adds d[j + 1]
+    // into d[j] for every j, in ascending order. f must have degree below k and be
+    // reduced mod p in a prime field; ShareRefresh walks its polynomials this way too.
+    static final class Differences {
+        private final int k;
+        private final BigInteger prime;
+        // One of these holds the table: p < 2^63, larger p as k blocks of little-endian
+        // limbs, or the integers
+        private long[] small;
+        private long[] limbs;
+        private BigInteger[] big;
+        private long pSmall;
+        private long[] pLimbs;
+        private int words;
+
+        Differences(LongFunction<BigInteger> f, long x0, int k, BigInteger prime) {
+            this.k = k;
+            this.prime = prime;
+            BigInteger[] d = new BigInteger[k];
+            for (int i = 0; i < k; i++) {
+                d[i] = f.apply(x0 + i);
+            }
+            for (int j = 1; j < k; j++) {
+                for (int i = k - 1; i >= j; i--) {
+                    d[i] = d[i].subtract(d[i - 1]);
+                    if (prime != null && d[i].signum() < 0) d[i] = d[i].add(prime);
+                }
+            }
+
+            if (prime == null) {
+                big = d;
+            } else if (PrimeField64.fits(prime)) {
+                pSmall = prime.longValue();
+                small = new long[k];
+                for (int j = 0; j < k; j++) {
+                    small[j] = d[j].longValue();
+                }
+            } else {
+                words = (prime.bitLength() + 63) / 64;
+                pLimbs = toLimbs(prime);
+                limbs = new long[k * words];
+                for (int j = 0; j < k; j++) {
+                    System.arraycopy(toLimbs(d[j]), 0, limbs, j * words, words);
+                }
+            }
+        }
+
+        BigInteger current() {
+            if (big != null) return big[0];
+            if (small != null) return BigInteger.valueOf(small[0]);
+            byte[] bytes = new byte[words * 8 + 1];
+            for (int w = 0; w < words; w++) {
+                long v = limbs[w];
+                for (int b = 0; b < 8; b++) {
+                    bytes[bytes.length - 1 - w * 8 - b] = (byte) (v >>> (8 * b));
+                }
+            }
+            return new BigInteger(bytes);
+        }
+
+        void step() {
+            if (big != null) {
+                for (int j = 0; j + 1 < k; j++) {
+                    big[j] = big[j].add(big[j + 1]);
+                }
+            } else if (small != null) {
+                long p = pSmall;
+                for (int j = 0; j + 1 < k; j++) {
+                    long s = small[j] + small[j + 1];
+                    small[j] = s < 0 || s >= p ? s - p : s;
+                }
+            } else {
+                for (int j = 0; j + 1 < k; j++) {
+                    addMod(j * words, (j + 1) * words);
+                }
+            }
+        }
+
+        // limbs[a..] = limbs[a..] + limbs[b..] mod p, both below p
+        private void addMod(int a, int b) {
+            long carry = 0;
+            for (int w = 0; w < words; w++) {
+                long x = limbs[a + w];
+                long s = x + limbs[b + w] + carry;
+                carry = Long.compareUnsigned(s, x) < 0 || (carry != 0 && s == x) ? 1 : 0;
+                limbs[a + w] = s;
+            }
+            if (carry == 0) {
+                for (int w = words - 1; w >= 0; w--) {
+                    int c = Long.compareUnsigned(limbs[a + w], pLimbs[w]);
+                    if (c < 0) return;
+                    if (c > 0) break;
+                }
+            }
+            long borrow = 0;
+            for (int w = 0; w < words; w++) {
+                long x = limbs[a + w];
+                long d = x - pLimbs[w] - borrow;
+                borrow = Long.compareUnsigned(x, pLimbs[w]) < 0 || (borrow != 0 && x == pLimbs[w]) ? 1 : 0;
+                limbs[a + w] = d;
+            }
+        }
+
+        private long[] toLimbs(BigInteger v) {
+            long[] out = new long[words];
+            for (int w = 0; w < words; w++) {
+                out[w] = v.shiftRight(64 * w).longValue();
+            }
+            return out;
+        }
+    }
+
+    public static void main(String[] args) {
+        String secretArg = null;
+        String primeArg = null;
+        String outFile = null;
+        int k = -1;
+        int n = -1;
+        int base = 10;
+        int bits = 256;
+        int threads = Runtime.getRuntime().availableProcessors();
+        boolean valid = true;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--secret") && i + 1 < args.length) {
+                secretArg = args[++i];
+            } else if (args[i].equals("--k") && i + 1 < args.length) {
+                k = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--n") && i + 1 < args.length) {
+                n = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--prime") && i + 1 < args.length) {
+                primeArg = args[++i];
+            } else if (args[i].equals("--base") && i + 1 < args.length) {
+                String b = args[++i];
+                base = b.equals("random") ? RANDOM_BASE : Integer.parseInt(b);
+            } else if (args[i].equals("--bits") && i + 1 < args.length) {
+                bits = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--threads") && i + 1 < args.length) {
+                threads = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--out") && i + 1 < args.length) {
+                outFile = args[++i];
+            } else {
+                valid = false;
+                break;
+            }
+        }
+        if (!valid || secretArg == null || k < 0 || n < 0) {
+            System.err.println("Usage: java ShamirSplit --secret <s> --k <k> --n <n> [--prime <p>] [--base <b>|random] [--bits <b>] [--threads <n>] [--out <file.json>]");
+            System.exit(1);
+        }
+
+        try {
+            BigInteger secret = new BigInteger(secretArg);
+            BigInteger prime = primeArg != null ? new BigInteger(primeArg) : null;
+            ShamirSplit split = new ShamirSplit(secret, k, prime, bits, new SecureRandom());
+
+            long start = System.nanoTime();
+            if (outFile == null) {
+                split.write(n, base, System.out, threads);
+            } else {
+                // Nothing is created for arguments write would reject, and a failed
+                // write leaves no truncated share file behind
+                split.check(n, base);
+                Path file = Paths.get(outFile);
+                Path partial = file.resolveSibling(file.getFileName() + ".part");
+                try {
+                    try (OutputStream out = Files.newOutputStream(partial)) {
+                        split.write(n, base, out, threads);
+                    }
+                    Files.move(partial, file, StandardCopyOption.REPLACE_EXISTING);
+                } finally {
+                    Files.deleteIfExists(partial);
+                }
+            }
+            System.err.printf("%d shares, %.1f ms%n", n, (System.nanoTime() - start) / 1e6);
+        } catch (Exception e) {
+            System.err.println("Error: " + e.getMessage());
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+}
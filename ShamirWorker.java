@@ -0,0 +1,204 @@
+import java.io.*;
+import java.math.BigInteger;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Worker process for DistributedLagrange: sums one slice of the Lagrange terms.
+//
+// Listens on a loopback TCP port or a Unix-domain socket and answers the binary
+// slice requests described in DistributedLagrange, any number per connection, with
+// the unreduced partial fraction (or partial sum mod p) of its slice. The terms of a
+// slice are spread over this process's own ForkJoinPool, so one worker per machine
+// with --threads set to its cores and one per core both work. A request that fails
+// (colliding x's, bad framing) is answered with an error; one that cannot be framed
+// ends its connection.
+public class ShamirWorker implements Closeable {
+
+    public static final int DEFAULT_PORT = 7071;
+
+    private final ServerSocketChannel server;
+    private final Path socketFile;
+    private final ForkJoinPool pool;
+    private final ExecutorService connections = ShamirServer.connectionExecutor();
+    private final AtomicInteger served = new AtomicInteger();
+
+    private ShamirWorker(ServerSocketChannel server, Path socketFile, int threads) {
+        this.server = server;
+        this.socketFile = socketFile;
+        this.pool = new ForkJoinPool(threads);
+    }
+
+    // Listens on the loopback interface; port 0 picks a free one
+    public static ShamirWorker tcp(int port, int threads) throws IOException {
+        ServerSocketChannel channel = ServerSocketChannel.open();
+        channel.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+        return new ShamirWorker(channel, null, threads);
+    }
+
+    // Listens on a Unix-domain socket at path, replacing a stale socket file
+    public static ShamirWorker unix(Path path, int threads) throws IOException {
+        Files.deleteIfExists(path);
+        ServerSocketChannel channel = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        channel.bind(UnixDomainSocketAddress.of(path));
+        return new ShamirWorker(channel, path, threads);
+    }
+
+    public SocketAddress address() throws IOException {
+        return server.getLocalAddress();
+    }
+
+    // Slices summed so far, across all connections
+    public int served() {
+        return served.get();
+    }
+
+    // Accepts connections until close() is called
+    public void serve() throws IOException {
+        try {
+            while (true) {
+                SocketChannel client = server.accept();
+                connections.execute(() -> handle(client));
+            }
+        } catch (ClosedChannelException e) {
+            // close() was called
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        server.close();
+        connections.shutdownNow();
+        pool.shutdown();
+        if (socketFile != null) {
+            Files.deleteIfExists(socketFile);
+        }
+    }
+
+    private void handle(SocketChannel client) {
+        try (client;
+             DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(client), 1 << 16));
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(client), 1 << 16))) {
+            while (true) {
+                int magic;
+                try {
+                    magic = in.readInt();
+                } catch (EOFException e) {
+                    break;
+                }
+                if (magic != DistributedLagrange.MAGIC) {
+                    out.writeByte(DistributedLagrange.FAILED);
+                    out.writeUTF("Not a slice request");
+                    out.flush();
+                    break;
+                }
+                BigInteger[] sum;
+                String error = null;
+                try {
+                    sum = slice(in);
+                } catch (ArithmeticException | IllegalArgumentException e) {
+                    sum = null;
+                    error = e.getMessage() == null
+                            ? e.getClass().getSimpleName()
+                            : e.getClass().getSimpleName() + ": " + e.getMessage();
+                }
+                if (sum != null) {
+                    out.writeByte(DistributedLagrange.OK);
+                    DistributedLagrange.writeBig(out, sum[0]);
+                    DistributedLagrange.writeBig(out, sum[1]);
+                } else {
+                    out.writeByte(DistributedLagrange.FAILED);
+                    out.writeUTF(error);
+                }
+                out.flush();
+                served.incrementAndGet();
+            }
+        } catch (IOException e) {
+            // Coordinator went away or sent a truncated request
+        }
+    }
+
+    // Reads the rest of one request and sums its slice
+    private BigInteger[] slice(DataInputStream in) throws IOException {
+        byte mode = in.readByte();
+        BigInteger p = mode == DistributedLagrange.MOD_P ? DistributedLagrange.readBig(in) : null;
+        BigInteger m0 = DistributedLagrange.readBig(in);
+        int k = in.readInt();
+        if (k < 0 || k > ShamirServer.MAX_REQUEST) {
+            throw new IOException("Bad share count " + k);
+        }
+        BigInteger[] xs = new BigInteger[k];
+        for (int i = 0; i < k; i++) {
+            xs[i] = DistributedLagrange.readBig(in);
+        }
+        int from = in.readInt();
+        int to = in.readInt();
+        if (from < 0 || to > k || from > to) {
+            throw new IOException("Bad slice [" + from + ", " + to + ") of " + k);
+        }
+        BigInteger[] ys = new BigInteger[k];
+        for (int i = from; i < to; i++) {
+            ys[i] = DistributedLagrange.readBig(in);
+        }
+        if (from == to) {
+            return new BigInteger[] { BigInteger.ZERO, BigInteger.ONE };
+        }
+        if (p != null) {
+            return new BigInteger[] { ParallelLagrange.sliceMod(xs, ys, p, m0, from, to, pool), BigInteger.ONE };
+        }
+        return ParallelLagrange.slice(xs, ys, m0, from, to, pool);
+    }
+
+    public static void main(String[] args) {
+        int port = DEFAULT_PORT;
+        String socket = null;
+        int threads = Runtime.getRuntime().availableProcessors();
+        boolean valid = true;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--port") && i + 1 < args.length) {
+                port = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--socket") && i + 1 < args.length) {
+                socket = args[++i];
+            } else if (args[i].equals("--threads") && i + 1 < args.length) {
+                threads = Integer.parseInt(args[++i]);
+            } else {
+                valid = false;
+                break;
+            }
+        }
+        if (!valid || threads < 1) {
+            System.err.println("Usage: java ShamirWorker [--port <n> | --socket <path>] [--threads <n>]");
+            System.exit(1);
+        }
+
+        try {
+            ShamirWorker worker = socket != null
+                    ? unix(Paths.get(socket), threads)
+                    : tcp(port, threads);
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    worker.close();
+                } catch (IOException e) {
+                    // exiting anyway
+                }
+                System.err.printf("%d slices served%n", worker.served());
+            }));
+            System.err.println("Listening on " + worker.address());
+            worker.serve();
+        } catch (Exception e) {
+            System.err.println("Error: " + e.getMessage());
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+}
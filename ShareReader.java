@@ -0,0 +1,770 @@
+import java.io.*;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+// Single-pass streaming parser for share files in the keys/base/value JSON format.
+//
+// Input is read through one fixed-size char window from a Reader or a ByteBuffer.
+// Member names and value digits land in two reusable token buffers, each value is
+// converted straight from its buffer, and x, base and y go into parallel arrays; no
+// per-point maps or substrings are built. When only the first k shares by x are
+// wanted and keys.k is known, the k smallest x's are kept in a bounded max-heap and
+// values falling outside it are never converted, so memory follows the selected
+// shares rather than the file. Given a ReconstructionStats, file reads and value
+// conversions are charged to their own phases and the rest to parse.
+//
+// readMapped maps the file instead and only records where each value's digits lie
+// during the scan; once the shares are selected, their digits are converted straight
+// from the mapping, spread over a pool when more than one thread is allowed. Values
+// that leave the heap are never converted, and the scan itself only tokenizes.
+//
+// readBlocks reads the multi-secret layout instead, where every share carries a
+// "values" array with one entry per block (see BlockShares); the rows of the selected
+// shares are converted as they are scanned.
+public final class ShareReader {
+
+    // Fewer digits than this convert faster than a pool starts
+    private static final int PARALLEL_DIGITS = 1 << 16;
+
+    private final Reader reader;
+    private final ByteBuffer bytes;
+    private final char[] window = new char[8192];
+    // Bulk copies out of bytes land here before widening into the window
+    private byte[] raw;
+    private int pos;
+    private int limit;
+    // Offset of window[0] in bytes
+    private int windowStart;
+
+    private final Token name = new Token(32);
+    private final Token digits = new Token(256);
+
+    private ReconstructionStats stats;
+
+    private int n = -1;
+    private int k = -1;
+    private int blocks = -1;
+    private BigInteger prime;
+
+    // Parallel share arrays; a max-heap on x while selection is bounded
+    private BigInteger[] xs = new BigInteger[16];
+    private BigInteger[] ys = new BigInteger[16];
+    private byte[] bases = new byte[16];
+    private int count;
+    private boolean bounded;
+
+    // Multi-secret layout: each share's block values, in place of ys
+    private BigInteger[][] rows;
+    private final List<String> pendingRow = new ArrayList<>();
+
+    // Deferred conversion: where each value's digits lie in bytes; ys stay null
+    private final boolean deferred;
+    private int[] offsets;
+    private int[] lengths;
+    private int spanLength;
+
+    private ShareReader(Reader reader, ByteBuffer bytes) {
+        this(reader, bytes, false);
+    }
+
+    private ShareReader(Reader reader, ByteBuffer bytes, boolean deferred) {
+        this.reader = reader;
+        this.bytes = bytes;
+        this.deferred = deferred;
+        if (deferred) {
+            offsets = new int[16];
+            lengths = new int[16];
+        }
+    }
+
+    // Reads all shares, or only the k with the smallest x when selectK is set
+    public static ShareSet read(Reader reader, boolean selectK) throws IOException {
+        return new ShareReader(reader, null).parse(selectK);
+    }
+
+    // Reads ASCII/UTF-8 JSON from position to limit of the buffer
+    public static ShareSet read(ByteBuffer buffer, boolean selectK) throws IOException {
+        return new ShareReader(null, buffer).parse(selectK);
+    }
+
+    // A share file in either format: binary (BinaryShares) or JSON
+    public static ShareSet read(String file, boolean selectK) throws IOException {
+        return read(file, selectK, null);
+    }
+
+    // As read(String, boolean), counting into stats when it is not null. Binary files
+    // are mapped, so their I/O and conversions show up under parse.
+    public static ShareSet read(String file, boolean selectK, ReconstructionStats stats) throws IOException {
+        Path path = Paths.get(file);
+        if (stats != null) {
+            stats.enter(ReconstructionStats.PARSE);
+        }
+        if (BinaryShares.isBinary(path)) {
+            ShareSet shares = BinaryShares.read(path, selectK);
+            if (stats != null) {
+                stats.count(ReconstructionStats.READ, Files.size(path), 0);
+                stats.count(ReconstructionStats.PARSE, 0, shares.size());
+            }
+            return shares;
+        }
+        try (Reader reader = new FileReader(file)) {
+            ShareReader parser = new ShareReader(reader, null);
+            parser.stats = stats;
+            return parser.parse(selectK);
+        }
+    }
+
+    // Maps the file and converts the selected values on up to threads threads; files
+    // too large for one mapping go through read(String, boolean, ReconstructionStats)
+    public static ShareSet readMapped(String file, boolean selectK, int threads, ReconstructionStats stats)
+            throws IOException {
+        Path path = Paths.get(file);
+        if (BinaryShares.isBinary(path) || Files.size(path) > Integer.MAX_VALUE) {
+            return read(file, selectK, stats);
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (stats != null) {
+                stats.enter(ReconstructionStats.READ);
+            }
+            ByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (stats != null) {
+                stats.count(ReconstructionStats.READ, channel.size(), 0);
+                stats.enter(ReconstructionStats.PARSE);
+            }
+            ShareReader parser = new ShareReader(null, mapped, true);
+            parser.stats = stats;
+            return parser.parse(selectK, threads);
+        }
+    }
+
+    // Multi-secret shares: all of them, or the k with the smallest x when selectK is set
+    public static BlockShares readBlocks(Reader reader, boolean selectK) throws IOException {
+        ShareReader parser = new ShareReader(reader, null);
+        parser.rows = new BigInteger[16][];
+        return parser.parseBlocks(selectK);
+    }
+
+    // A multi-secret share file, read through one mapping
+    public static BlockShares readBlocks(String file, boolean selectK) throws IOException {
+        Path path = Paths.get(file);
+        if (Files.size(path) > Integer.MAX_VALUE) {
+            try (Reader reader = new FileReader(file)) {
+                return readBlocks(reader, selectK);
+            }
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ShareReader parser = new ShareReader(null, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+            parser.rows = new BigInteger[16][];
+            return parser.parseBlocks(selectK);
+        }
+    }
+
+    private ShareSet parse(boolean selectK) throws IOException {
+        return parse(selectK, 1);
+    }
+
+    private ShareSet parse(boolean selectK, int threads) throws IOException {
+        int size = scan(selectK);
+        if (deferred) {
+            convert(size, threads);
+        }
+        return new ShareSet(n, k, prime,
+                Arrays.copyOf(xs, size), Arrays.copyOf(ys, size), Arrays.copyOf(bases, size));
+    }
+
+    private BlockShares parseBlocks(boolean selectK) throws IOException {
+        int size = scan(selectK);
+        int width = Math.max(blocks, 0);
+        BigInteger[][] columns = new BigInteger[width][size];
+        for (int i = 0; i < size; i++) {
+            for (int b = 0; b < width; b++) {
+                columns[b][i] = rows[i][b];
+            }
+        }
+        return new BlockShares(n, k, prime, Arrays.copyOf(xs, size), Arrays.copyOf(bases, size), columns);
+    }
+
+    // Parses the whole document, sorts the shares by x and returns how many to keep
+    private int scan(boolean selectK) throws IOException {
+        expect('{');
+        if (peekNonSpace() == '}') {
+            pos++;
+        } else {
+            do {
+                expect('"');
+                readString(name);
+                expect(':');
+                if (name.is("keys")) {
+                    parseKeys(selectK);
+                } else {
+                    parseShare();
+                }
+            } while (separator('}'));
+        }
+
+        if (selectK && k < 0) {
+            throw new IllegalArgumentException("JSON must contain keys.k");
+        }
+
+        // Heap sort by x, then keep the first k
+        heapify(count);
+        for (int end = count - 1; end > 0; end--) {
+            swap(0, end);
+            siftDown(0, end);
+        }
+        return selectK ? Math.min(k, count) : count;
+    }
+
+    private void parseKeys(boolean selectK) throws IOException {
+        expect('{');
+        if (peekNonSpace() == '}') {
+            pos++;
+            return;
+        }
+        do {
+            expect('"');
+            readString(name);
+            expect(':');
+            if (name.is("n")) {
+                readScalar(name);
+                n = BaseConversion.parse(name.chars, 0, name.length, 10).intValueExact();
+            } else if (name.is("k")) {
+                readScalar(name);
+                k = BaseConversion.parse(name.chars, 0, name.length, 10).intValueExact();
+            } else if (name.is("prime")) {
+                readScalar(name);
+                prime = BaseConversion.parse(name.chars, 0, name.length, 10);
+            } else if (name.is("blocks") && rows != null) {
+                readScalar(name);
+                int declared = BaseConversion.parse(name.chars, 0, name.length, 10).intValueExact();
+                if (blocks >= 0 && blocks != declared) {
+                    throw new IllegalArgumentException("keys.blocks is " + declared + " but shares have " + blocks);
+                }
+                blocks = declared;
+            } else {
+                skipValue();
+            }
+        } while (separator('}'));
+
+        // Shares read before the keys block are trimmed to the k smallest
+        if (selectK && k >= 0) {
+            bounded = true;
+            heapify(count);
+            while (count > k) {
+                swap(0, --count);
+                siftDown(0, count);
+            }
+        }
+    }
+
+    private void parseShare() throws IOException {
+        BigInteger x = name.length > 0 && name.chars[0] == '-'
+                ? BaseConversion.parse(name.chars, 1, name.length, 10).negate()
+                : BaseConversion.parse(name.chars, 0, name.length, 10);
+
+        if (nextNonSpace() != '{') {
+            throw new IllegalArgumentException("Expected an object for share " + x);
+        }
+        int base = -1;
+        boolean hasValue = false;
+        int end = -1;
+        BigInteger[] row = null;
+        // Rows of shares the heap would reject are scanned but not converted
+        boolean wanted = !bounded || (k > 0 && (count < k || x.compareTo(xs[0]) < 0));
+        if (peekNonSpace() == '}') {
+            pos++;
+        } else {
+            do {
+                expect('"');
+                readString(name);
+                expect(':');
+                if (name.is("base")) {
+                    readScalar(name);
+                    base = BaseConversion.parse(name.chars, 0, name.length, 10).intValueExact();
+                } else if (name.is("values") && rows != null) {
+                    row = readRow(x, base, wanted);
+                    hasValue = true;
+                } else if (name.is("value")) {
+                    expect('"');
+                    if (deferred) {
+                        end = skipDigits();
+                    } else {
+                        readString(digits);
+                    }
+                    hasValue = true;
+                } else {
+                    skipValue();
+                }
+            } while (separator('}'));
+        }
+        if (base < 0 || !hasValue) {
+            throw new IllegalArgumentException("Share " + x + " needs both base and "
+                    + (rows != null ? "values" : "value"));
+        }
+        if (stats != null) {
+            stats.count(ReconstructionStats.PARSE, 0, 1);
+        }
+
+        if (bounded) {
+            if (k == 0 || (count == k && x.compareTo(xs[0]) >= 0)) {
+                return;
+            }
+        }
+        BigInteger y = null;
+        if (rows != null) {
+            if (row == null) {
+                throw new IllegalArgumentException("Share " + x + " has a single value; expected \"values\"");
+            }
+            if (row.length > 0 && row[0] == null) {
+                // values came before base
+                row = convertRow(base);
+            }
+        } else if (!deferred || end < 0) {
+            int phase = stats != null ? stats.enter(ReconstructionStats.CONVERT) : 0;
+            y = BaseConversion.parse(digits.chars, 0, digits.length, base);
+            if (stats != null) {
+                stats.count(ReconstructionStats.CONVERT, digits.length, 1);
+                stats.enter(phase);
+            }
+        } else if (base < 2 || base > 36) {
+            throw new IllegalArgumentException("Unsupported base: " + base);
+        }
+
+        int slot = bounded && count == k ? 0 : count;
+        if (slot == count && count == xs.length) {
+            xs = Arrays.copyOf(xs, count * 2);
+            ys = Arrays.copyOf(ys, count * 2);
+            bases = Arrays.copyOf(bases, count * 2);
+            if (rows != null) {
+                rows = Arrays.copyOf(rows, count * 2);
+            }
+            if (deferred) {
+                offsets = Arrays.copyOf(offsets, count * 2);
+                lengths = Arrays.copyOf(lengths, count * 2);
+            }
+        }
+        xs[slot] = x;
+        ys[slot] = y;
+        bases[slot] = (byte) base;
+        if (rows != null) {
+            rows[slot] = row;
+        }
+        if (deferred) {
+            offsets[slot] = end - spanLength;
+            lengths[slot] = spanLength;
+        }
+        if (slot == 0 && count == k && bounded) {
+            siftDown(0, count);
+            return;
+        }
+        count++;
+        if (bounded) {
+            siftUp(count - 1);
+        }
+    }
+
+    // Reads a "values" array. With the base known the values are converted as they
+    // come; before it they are kept as digit strings in pendingRow and a row of nulls
+    // returned for convertRow. Unwanted rows come back empty of values but sized.
+    private BigInteger[] readRow(BigInteger x, int base, boolean wanted) throws IOException {
+        expect('[');
+        List<BigInteger> values = new ArrayList<>(blocks >= 0 ? blocks : 16);
+        pendingRow.clear();
+        int width = 0;
+        if (peekNonSpace() == ']') {
+            pos++;
+        } else {
+            do {
+                expect('"');
+                readString(digits);
+                width++;
+                if (!wanted) continue;
+                if (base >= 0) {
+                    values.add(BaseConversion.parse(digits.chars, 0, digits.length, base));
+                } else {
+                    pendingRow.add(new String(digits.chars, 0, digits.length));
+                }
+            } while (separator(']'));
+        }
+        if (blocks < 0) {
+            blocks = width;
+        } else if (width != blocks) {
+            throw new IllegalArgumentException("Share " + x + " has " + width + " values, expected " + blocks);
+        }
+        if (!wanted) {
+            return new BigInteger[0];
+        }
+        if (base < 0) {
+            return new BigInteger[width];
+        }
+        return values.toArray(new BigInteger[0]);
+    }
+
+    private BigInteger[] convertRow(int base) {
+        BigInteger[] row = new BigInteger[pendingRow.size()];
+        for (int b = 0; b < row.length; b++) {
+            row[b] = BaseConversion.parse(pendingRow.get(b), base);
+        }
+        return row;
+    }
+
+    // --- max-heap on xs, carrying ys and bases along ---
+
+    private void heapify(int size) {
+        for (int i = size / 2 - 1; i >= 0; i--) {
+            siftDown(i, size);
+        }
+    }
+
+    private void siftDown(int i, int size) {
+        while (true) {
+            int largest = i;
+            int left = 2 * i + 1;
+            int right = left + 1;
+            if (left < size && xs[left].compareTo(xs[largest]) > 0) largest = left;
+            if (right < size && xs[right].compareTo(xs[largest]) > 0) largest = right;
+            if (largest == i) return;
+            swap(i, largest);
+            i = largest;
+        }
+    }
+
+    private void siftUp(int i) {
+        while (i > 0) {
+            int parent = (i - 1) / 2;
+            if (xs[parent].compareTo(xs[i]) >= 0) return;
+            swap(i, parent);
+            i = parent;
+        }
+    }
+
+    private void swap(int a, int b) {
+        BigInteger x = xs[a];
+        xs[a] = xs[b];
+        xs[b] = x;
+        BigInteger y = ys[a];
+        ys[a] = ys[b];
+        ys[b] = y;
+        byte base = bases[a];
+        bases[a] = bases[b];
+        bases[b] = base;
+        if (rows != null) {
+            BigInteger[] row = rows[a];
+            rows[a] = rows[b];
+            rows[b] = row;
+        }
+        if (deferred) {
+            int offset = offsets[a];
+            offsets[a] = offsets[b];
+            offsets[b] = offset;
+            int length = lengths[a];
+            lengths[a] = lengths[b];
+            lengths[b] = length;
+        }
+    }
+
+    // --- deferred conversion ---
+
+    // Converts the values of shares [0, size) that the scan left as spans. Shares are
+    // cut into contiguous runs of about equal digit count, a few per thread so uneven
+    // values balance out.
+    private void convert(int size, int threads) throws IOException {
+        int phase = stats != null ? stats.enter(ReconstructionStats.CONVERT) : 0;
+        long digitCount = 0;
+        int pending = 0;
+        for (int i = 0; i < size; i++) {
+            if (ys[i] == null) {
+                digitCount += lengths[i];
+                pending++;
+            }
+        }
+        if (threads <= 1 || pending < 2 || digitCount < PARALLEL_DIGITS) {
+            convertRange(0, size);
+        } else {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            try {
+                long share = Math.max(1, digitCount / (4L * threads));
+                List<Callable<Void>> runs = new ArrayList<>();
+                int from = 0;
+                long digitsInRun = 0;
+                for (int i = 0; i < size; i++) {
+                    if (ys[i] == null) {
+                        digitsInRun += lengths[i];
+                    }
+                    if (digitsInRun >= share || i == size - 1) {
+                        int start = from;
+                        int stop = i + 1;
+                        runs.add(() -> {
+                            convertRange(start, stop);
+                            return null;
+                        });
+                        from = stop;
+                        digitsInRun = 0;
+                    }
+                }
+                for (Future<Void> run : pool.invokeAll(runs)) {
+                    run.get();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while converting shares");
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw new IOException(e.getCause());
+            } finally {
+                pool.shutdown();
+            }
+        }
+        if (stats != null) {
+            stats.count(ReconstructionStats.CONVERT, digitCount, pending);
+            stats.enter(phase);
+        }
+    }
+
+    // Absolute reads only, so several threads can share the mapping
+    private void convertRange(int from, int to) {
+        char[] scratch = new char[256];
+        byte[] raw = new byte[scratch.length];
+        for (int i = from; i < to; i++) {
+            if (ys[i] != null) continue;
+            int length = lengths[i];
+            if (scratch.length < length) {
+                scratch = new char[Math.max(length, scratch.length * 2)];
+                raw = new byte[scratch.length];
+            }
+            bytes.get(offsets[i], raw, 0, length);
+            for (int j = 0; j < length; j++) {
+                scratch[j] = (char) (raw[j] & 0xff);
+            }
+            ys[i] = BaseConversion.parse(scratch, 0, length, bases[i]);
+        }
+    }
+
+    // --- tokenizer ---
+
+    private int read() throws IOException {
+        if (pos == limit && !fill()) {
+            return -1;
+        }
+        return window[pos++];
+    }
+
+    private boolean fill() throws IOException {
+        pos = 0;
+        limit = 0;
+        if (reader != null) {
+            int phase = stats != null ? stats.enter(ReconstructionStats.READ) : 0;
+            int read = reader.read(window, 0, window.length);
+            limit = Math.max(read, 0);
+            if (stats != null) {
+                // Share files are ASCII, so chars read are bytes read
+                stats.count(ReconstructionStats.READ, limit, 0);
+                stats.enter(phase);
+            }
+        } else {
+            windowStart = bytes.position();
+            int read = Math.min(bytes.remaining(), window.length);
+            if (raw == null) {
+                raw = new byte[window.length];
+            }
+            bytes.get(raw, 0, read);
+            for (int i = 0; i < read; i++) {
+                window[i] = (char) (raw[i] & 0xff);
+            }
+            limit = read;
+        }
+        return limit > 0;
+    }
+
+    private int nextNonSpace() throws IOException {
+        int c;
+        do {
+            c = read();
+        } while (c == ' ' || c == '\n' || c == '\r' || c == '\t');
+        if (c < 0) {
+            throw new EOFException("Unexpected end of JSON");
+        }
+        return c;
+    }
+
+    // The next non-space char, left unread
+    private int peekNonSpace() throws IOException {
+        int c = nextNonSpace();
+        pos--;
+        return c;
+    }
+
+    private void expect(char expected) throws IOException {
+        int c = nextNonSpace();
+        if (c != expected) {
+            throw new IOException("Expected '" + expected + "' but found '" + (char) c + "'");
+        }
+    }
+
+    // true after ',', false after the closing char
+    private boolean separator(char close) throws IOException {
+        int c = nextNonSpace();
+        if (c == ',') return true;
+        if (c == close) return false;
+        throw new IOException("Expected ',' or '" + close + "' but found '" + (char) c + "'");
+    }
+
+    // Reads the rest of a string whose opening quote has been consumed
+    private void readString(Token target) throws IOException {
+        target.length = 0;
+        while (true) {
+            if (pos == limit && !fill()) {
+                throw new EOFException("Unterminated string");
+            }
+            int start = pos;
+            while (pos < limit && window[pos] != '"' && window[pos] != '\\') {
+                pos++;
+            }
+            target.append(window, start, pos - start);
+            if (pos == limit) continue;
+
+            if (window[pos++] == '"') {
+                return;
+            }
+            int escaped = read();
+            switch (escaped) {
+                case 'n': target.append('\n'); break;
+                case 't': target.append('\t'); break;
+                case 'r': target.append('\r'); break;
+                case 'b': target.append('\b'); break;
+                case 'f': target.append('\f'); break;
+                case 'u':
+                    int code = 0;
+                    for (int i = 0; i < 4; i++) {
+                        code = code * 16 + Character.digit(read(), 16);
+                    }
+                    target.append((char) code);
+                    break;
+                case -1: throw new EOFException("Unterminated string");
+                default: target.append((char) escaped);
+            }
+        }
+    }
+
+    // Deferred mode: steps over the rest of a value string, leaving spanLength and
+    // returning the offset of its closing quote in bytes. Digits with escapes have no
+    // plain span to come back to, so those are read again into digits and -1 returned.
+    private int skipDigits() throws IOException {
+        int start = windowStart + pos;
+        while (true) {
+            int i = pos;
+            while (i < limit && window[i] != '"' && window[i] != '\\') {
+                i++;
+            }
+            if (i < limit) {
+                pos = i + 1;
+                if (window[i] == '"') {
+                    spanLength = windowStart + i - start;
+                    return windowStart + i;
+                }
+                bytes.position(start);
+                pos = 0;
+                limit = 0;
+                readString(digits);
+                return -1;
+            }
+            // Past the window, look for the quote in the mapping itself rather than
+            // widening digits that are never read as chars
+            int at = bytes.position();
+            int end = bytes.limit();
+            while (at < end) {
+                byte b = bytes.get(at);
+                if (b == '"' || b == '\\') break;
+                at++;
+            }
+            bytes.position(at);
+            pos = 0;
+            limit = 0;
+            if (!fill()) {
+                throw new EOFException("Unterminated string");
+            }
+        }
+    }
+
+    // Reads a string or bare literal (number, true, false, null) into target
+    private void readScalar(Token target) throws IOException {
+        int c = nextNonSpace();
+        if (c == '"') {
+            readString(target);
+            return;
+        }
+        target.length = 0;
+        while (c >= 0 && c != ',' && c != '}' && c != ']' && c > ' ') {
+            target.append((char) c);
+            c = read();
+        }
+        if (c >= 0) {
+            pos--;
+        }
+    }
+
+    private void skipValue() throws IOException {
+        int c = peekNonSpace();
+        if (c != '{' && c != '[') {
+            readScalar(name);
+            return;
+        }
+        pos++;
+        int depth = 1;
+        while (depth > 0) {
+            c = nextNonSpace();
+            if (c == '"') readString(name);
+            else if (c == '{' || c == '[') depth++;
+            else if (c == '}' || c == ']') depth--;
+        }
+    }
+
+    // Growable char buffer
+    private static final class Token {
+        char[] chars;
+        int length;
+
+        Token(int capacity) {
+            chars = new char[capacity];
+        }
+
+        void append(char c) {
+            ensure(1);
+            chars[length++] = c;
+        }
+
+        void append(char[] source, int offset, int count) {
+            ensure(count);
+            System.arraycopy(source, offset, chars, length, count);
+            length += count;
+        }
+
+        private void ensure(int extra) {
+            if (length + extra > chars.length) {
+                chars = Arrays.copyOf(chars, Math.max(length + extra, chars.length * 2));
+            }
+        }
+
+        boolean is(String s) {
+            if (s.length() != length) return false;
+            for (int i = 0; i < length; i++) {
+                if (chars[i] != s.charAt(i)) return false;
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,306 @@
+import java.io.*;
+import java.math.BigInteger;
+import java.security.SecureRandom;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// Proactive refresh and re-sharing over GF(p): new shares of the same secret derived
+// from the old ones, without computing f(0).
+//
+// refresh keeps the x's and threshold and adds g(x) to every share, where g is a
+// random polynomial of degree k - 1 with g(0) = 0: f + g hides the same secret, and
+// old shares no longer combine with new ones. reshare moves to a new x-set and a
+// threshold k' >= k. From the k old shares with the smallest x it precomputes the
+// transition weights c_i = y_i / prod_{m != i} (xi - xm) once, so that
+//   f(x) = prod_i (x - xi) * sum_i c_i / (x - xi)
+// costs O(k) and one inversion at any new x (barycentric form; 0 is never an input),
+// and adds a zero-constant g of degree k' - 1. Lowering the threshold would need the
+// polynomial's degree to drop, which f + g cannot do without the secret, so it is
+// refused; reconstruct and split instead.
+//
+// Targets are cut into chunks of ShamirSplit.CHUNK evaluated on a ForkJoinPool. A
+// chunk of consecutive x's evaluates its first k' points directly and then walks
+// ShamirSplit.Differences with k' - 1 modular additions per share, so rotating a
+// million shares to x = 1..n costs about as much as writing them out.
+public final class ShareRefresh {
+
+    private final BigInteger p;
+    // Degree + 1 of the new polynomial
+    private final int threshold;
+    // Random g with g(0) = 0, evaluated like any ShamirSplit polynomial
+    private final ShamirSplit randomizer;
+    // The old shares and their transition weights; null for a refresh in place
+    private final BigInteger[] xs;
+    private final BigInteger[] ys;
+    private final BigInteger[] weights;
+
+    private ShareRefresh(BigInteger p, int threshold, Random random, BigInteger[] xs, BigInteger[] ys) {
+        this.p = p;
+        this.threshold = threshold;
+        this.randomizer = new ShamirSplit(BigInteger.ZERO, threshold, p, 0, random);
+        this.xs = xs;
+        this.ys = ys;
+        this.weights = xs != null ? transitionWeights(xs, ys, p) : null;
+    }
+
+    // Every share of the set at its own x plus g(x); same x's, k, bases and prime
+    public static ShareSet refresh(ShareSet shares, BigInteger prime, Random random, ForkJoinPool pool) {
+        BigInteger p = field(shares, prime);
+        ShareRefresh refresh = new ShareRefresh(p, shares.k, random, null, null);
+        BigInteger[] ys = refresh.evaluate(shares.xs, pool);
+        for (int i = 0; i < ys.length; i++) {
+            ys[i] = ys[i].add(shares.ys[i]).mod(p);
+        }
+        return new ShareSet(shares.n, shares.k, p, shares.xs, ys, shares.bases);
+    }
+
+    // Shares of the same secret at targets with threshold newK >= k, from the k old
+    // shares with the smallest x; targets must be distinct, non-zero mod p
+    public static ShareSet reshare(ShareSet shares, BigInteger prime, BigInteger[] targets, int newK,
+                                   Random random, ForkJoinPool pool) {
+        BigInteger p = field(shares, prime);
+        int k = shares.k;
+        if (newK < k) {
+            throw new IllegalArgumentException("Cannot lower the threshold from " + k + " to " + newK
+                    + " without the secret; reconstruct and split instead");
+        }
+        if (shares.size() < k) {
+            throw new IllegalArgumentException("Need " + k + " shares, got " + shares.size());
+        }
+        if (targets.length < newK) {
+            throw new IllegalArgumentException("Need at least " + newK + " targets, got " + targets.length);
+        }
+        BigInteger[] x = new BigInteger[k];
+        BigInteger[] y = new BigInteger[k];
+        for (int i = 0; i < k; i++) {
+            x[i] = shares.xs[i].mod(p);
+            y[i] = shares.ys[i].mod(p);
+        }
+        BigInteger[] sorted = targets.clone();
+        for (int j = 0; j < sorted.length; j++) {
+            sorted[j] = sorted[j].mod(p);
+        }
+        ParallelLagrange.checkDistinctMod(sorted);
+        for (BigInteger target : sorted) {
+            if (target.signum() == 0) {
+                throw new IllegalArgumentException("A share at x = 0 would be the secret");
+            }
+        }
+
+        ShareRefresh reshare = new ShareRefresh(p, newK, random, x, y);
+        BigInteger[] values = reshare.evaluate(targets, pool);
+        return new ShareSet(targets.length, newK, p, targets.clone(), values, new byte[targets.length]);
+    }
+
+    // x = 1..n, for targets
+    public static BigInteger[] range(int n) {
+        BigInteger[] xs = new BigInteger[n];
+        for (int i = 0; i < n; i++) {
+            xs[i] = BigInteger.valueOf(i + 1);
+        }
+        return xs;
+    }
+
+    private static BigInteger field(ShareSet shares, BigInteger prime) {
+        BigInteger p = prime != null ? prime : shares.prime;
+        if (p == null) {
+            throw new IllegalArgumentException("Refreshing needs a prime field (--prime or keys.prime)");
+        }
+        Lagrange.checkPrime(p);
+        if (shares.k < 1) {
+            throw new IllegalArgumentException("Share set must contain k");
+        }
+        return p;
+    }
+
+    // c_i = y_i / prod_{m != i} (xi - xm), the k denominators inverted together
+    static BigInteger[] transitionWeights(BigInteger[] xs, BigInteger[] ys, BigInteger p) {
+        int k = xs.length;
+        BigInteger[] dens = new BigInteger[k];
+        for (int i = 0; i < k; i++) {
+            BigInteger den = BigInteger.ONE;
+            for (int m = 0; m < k; m++) {
+                if (m != i) {
+                    den = den.multiply(xs[i].subtract(xs[m])).mod(p);
+                }
+            }
+            if (den.signum() == 0) {
+                throw new ArithmeticException("Division by zero: x-coordinates collide mod p");
+            }
+            dens[i] = den;
+        }
+        BigInteger[] weights = Lagrange.batchInverse(dens, p);
+        for (int i = 0; i < k; i++) {
+            weights[i] = weights[i].multiply(ys[i]).mod(p);
+        }
+        return weights;
+    }
+
+    // New value at x: the old polynomial (when re-sharing) plus g
+    BigInteger at(long x) {
+        return at(BigInteger.valueOf(x));
+    }
+
+    BigInteger at(BigInteger x) {
+        x = x.mod(p);
+        BigInteger g = x.bitLength() < 64 ? randomizer.evaluate(x.longValue()) : randomizer.evaluate(x);
+        if (xs == null) {
+            return g;
+        }
+        int k = xs.length;
+        BigInteger[] diffs = new BigInteger[k];
+        BigInteger product = BigInteger.ONE;
+        for (int i = 0; i < k; i++) {
+            diffs[i] = x.subtract(xs[i]).mod(p);
+            if (diffs[i].signum() == 0) {
+                return ys[i].add(g).mod(p);
+            }
+            product = product.multiply(diffs[i]).mod(p);
+        }
+        BigInteger[] inverses = Lagrange.batchInverse(diffs, p);
+        BigInteger sum = BigInteger.ZERO;
+        for (int i = 0; i < k; i++) {
+            sum = sum.add(weights[i].multiply(inverses[i]));
+        }
+        return sum.mod(p).multiply(product).add(g).mod(p);
+    }
+
+    BigInteger[] evaluate(BigInteger[] targets, ForkJoinPool pool) {
+        BigInteger[] values = new BigInteger[targets.length];
+        if (pool == null) {
+            for (int from = 0; from < targets.length; from += ShamirSplit.CHUNK) {
+                chunk(targets, values, from, Math.min(targets.length, from + ShamirSplit.CHUNK));
+            }
+        } else {
+            pool.invoke(new Chunks(this, targets, values, 0, targets.length));
+        }
+        return values;
+    }
+
+    // Targets [from, to): consecutive runs of long x's walk differences, the rest are
+    // evaluated one by one
+    private void chunk(BigInteger[] targets, BigInteger[] values, int from, int to) {
+        int i = from;
+        while (i < to) {
+            int run = i + 1;
+            if (targets[i].bitLength() < 62) {
+                while (run < to && targets[run].bitLength() < 62
+                        && targets[run].longValue() == targets[run - 1].longValue() + 1) {
+                    run++;
+                }
+            }
+            if (threshold <= ShamirSplit.MAX_DIFFERENCES_K && run - i > 2 * threshold) {
+                ShamirSplit.Differences walk = new ShamirSplit.Differences(this::at, targets[i].longValue(), threshold, p);
+                for (int j = i; j < run; j++) {
+                    values[j] = walk.current();
+                    if (j + 1 < run) walk.step();
+                }
+            } else {
+                for (int j = i; j < run; j++) {
+                    values[j] = at(targets[j]);
+                }
+            }
+            i = run;
+        }
+    }
+
+    @SuppressWarnings("serial")
+    private static final class Chunks extends RecursiveAction {
+        private final ShareRefresh engine;
+        private final BigInteger[] targets;
+        private final BigInteger[] values;
+        private final int from;
+        private final int to;
+
+        Chunks(ShareRefresh engine, BigInteger[] targets, BigInteger[] values, int from, int to) {
+            this.engine = engine;
+            this.targets = targets;
+            this.values = values;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= ShamirSplit.CHUNK) {
+                engine.chunk(targets, values, from, to);
+                return;
+            }
+            // Split on a chunk boundary so runs of consecutive x's stay long
+            int mid = from + ((to - from) / ShamirSplit.CHUNK / 2) * ShamirSplit.CHUNK;
+            if (mid == from) {
+                mid = from + ShamirSplit.CHUNK;
+            }
+            invokeAll(new Chunks(engine, targets, values, from, mid), new Chunks(engine, targets, values, mid, to));
+        }
+    }
+
+    public static void main(String[] args) {
+        String file = null;
+        String primeArg = null;
+        String outFile = null;
+        int newK = -1;
+        int n = -1;
+        int base = 10;
+        int threads = Runtime.getRuntime().availableProcessors();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--k") && i + 1 < args.length) {
+                newK = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--n") && i + 1 < args.length) {
+                n = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--prime") && i + 1 < args.length) {
+                primeArg = args[++i];
+            } else if (args[i].equals("--base") && i + 1 < args.length) {
+                base = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--threads") && i + 1 < args.length) {
+                threads = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--out") && i + 1 < args.length) {
+                outFile = args[++i];
+            } else if (file == null && !args[i].startsWith("--")) {
+                file = args[i];
+            } else {
+                file = null;
+                break;
+            }
+        }
+        if (file == null || threads < 1) {
+            System.err.println("Usage: java ShareRefresh [--k <new k>] [--n <new n>] [--prime <p>] [--base <b>] "
+                    + "[--threads <n>] [--out <file.json>] <shares.json>");
+            System.err.println("  without --k and --n every share is refreshed in place; with either, the");
+            System.err.println("  shares are re-shared to x = 1..n with threshold k (defaults: the old ones)");
+            System.exit(1);
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            long start = System.nanoTime();
+            boolean move = newK >= 0 || n >= 0;
+            ShareSet shares = ShareReader.readMapped(file, move, threads, null);
+            long read = System.nanoTime();
+            BigInteger prime = primeArg != null ? new BigInteger(primeArg) : null;
+            Random random = new SecureRandom();
+            ShareSet fresh;
+            if (move) {
+                int k = newK >= 0 ? newK : shares.k;
+                int size = n >= 0 ? n : Math.max(shares.n, k);
+                fresh = reshare(shares, prime, range(size), k, random, pool);
+            } else {
+                fresh = refresh(shares, prime, random, pool);
+            }
+            long derived = System.nanoTime();
+
+            OutputStream out = outFile != null ? new BufferedOutputStream(new FileOutputStream(outFile), 1 << 16) : System.out;
+            BinaryShares.writeJson(fresh, out, base);
+            if (outFile != null) out.close();
+            System.err.printf("%d shares (k = %d): read %.1f ms, derive %.1f ms, write %.1f ms%n", fresh.size(), fresh.k,
+                    (read - start) / 1e6, (derived - read) / 1e6, (System.nanoTime() - derived) / 1e6);
+        } catch (Exception e) {
+            System.err.println("Error: " + e.getMessage());
+            e.printStackTrace();
+            System.exit(1);
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
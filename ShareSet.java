@@ -0,0 +1,31 @@
+import java.math.BigInteger;
+
+// Parsed shares held as parallel arrays, sorted by ascending x.
+//
+// bases records the base each value was written in (0 when unknown), so results
+// can be printed back out in the same encoding.
+public final class ShareSet {
+
+    public final int n;
+    public final int k;
+    public final BigInteger prime;
+    public final BigInteger[] xs;
+    public final BigInteger[] ys;
+    public final byte[] bases;
+
+    public ShareSet(int n, int k, BigInteger prime, BigInteger[] xs, BigInteger[] ys, byte[] bases) {
+        if (xs.length != ys.length || xs.length != bases.length) {
+            throw new IllegalArgumentException("Share arrays differ in length");
+        }
+        this.n = n;
+        this.k = k;
+        this.prime = prime;
+        this.xs = xs;
+        this.ys = ys;
+        this.bases = bases;
+    }
+
+    public int size() {
+        return xs.length;
+    }
+}
@@ -0,0 +1,221 @@
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Bounded LRU cache of Lagrange weights keyed by the sorted x-coordinates (and the
+// prime, if any).
+//
+// Share sets that reuse the same x's (typically 1..n) pay the O(k^2) weight
+// computation once; every later reconstruction is an O(k) dot product with the
+// y-values. Shares may come in any order: the y's are permuted to match the sorted
+// x's the weights were built for. Safe for concurrent use.
+public final class WeightCache {
+
+    public static final int DEFAULT_CAPACITY = 64;
+
+    private final Map<Key, Weights> entries;
+    private long hits;
+    private long misses;
+
+    public WeightCache() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public WeightCache(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Cache capacity must be positive: " + capacity);
+        }
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Weights> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    // {numerator, denominator} of f(0), not reduced, as Lagrange.atZero
+    public BigInteger[] atZero(BigInteger[] xs, BigInteger[] ys) {
+        return atZero(xs, ys, null);
+    }
+
+    public BigInteger[] atZero(BigInteger[] xs, BigInteger[] ys, ReconstructionStats stats) {
+        return weights(xs, null).apply(xs, ys, stats);
+    }
+
+    // f(0) mod p, as Lagrange.atZeroMod
+    public BigInteger atZeroMod(BigInteger[] xs, BigInteger[] ys, BigInteger p) {
+        return atZeroMod(xs, ys, p, null);
+    }
+
+    public BigInteger atZeroMod(BigInteger[] xs, BigInteger[] ys, BigInteger p, ReconstructionStats stats) {
+        return weights(xs, p).apply(xs, ys, stats)[0];
+    }
+
+    // The weights for this x-set, computed on a miss; prime is null over the rationals
+    public Weights weights(BigInteger[] xs, BigInteger prime) {
+        BigInteger[] sorted = xs.clone();
+        Arrays.sort(sorted);
+        Key key = new Key(sorted, prime);
+
+        synchronized (this) {
+            Weights cached = entries.get(key);
+            if (cached != null) {
+                hits++;
+                return cached;
+            }
+            misses++;
+        }
+
+        // Computed outside the lock; two threads missing on the same key both compute
+        // and the second put wins, which is harmless
+        Weights computed = prime == null
+                ? new Weights(sorted, Lagrange.weights(sorted), null)
+                : new Weights(sorted, sorted.length >= FastInterpolation.crossover(prime)
+                        ? FastInterpolation.weightsMod(sorted, prime)
+                        : Lagrange.weightsMod(sorted, prime), prime);
+        synchronized (this) {
+            entries.put(key, computed);
+        }
+        return computed;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long hits() {
+        return hits;
+    }
+
+    public synchronized long misses() {
+        return misses;
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        hits = 0;
+        misses = 0;
+    }
+
+    // Precomputed weights for one sorted x-set
+    public static final class Weights {
+        private final BigInteger[] xs;
+        // k numerators followed by the common denominator; k residues mod prime
+        private final BigInteger[] w;
+        private final BigInteger prime;
+
+        Weights(BigInteger[] xs, BigInteger[] w, BigInteger prime) {
+            this.xs = xs;
+            this.w = w;
+            this.prime = prime;
+        }
+
+        // {numerator, denominator} of f(0); over GF(p) the denominator is 1 and the
+        // numerator is reduced mod p. The xs must be this set's, in any order.
+        public BigInteger[] apply(BigInteger[] shareXs, BigInteger[] ys) {
+            return apply(shareXs, ys, null);
+        }
+
+        // As apply, recording the widest weight, term and partial sum into stats when
+        // it is not null
+        public BigInteger[] apply(BigInteger[] shareXs, BigInteger[] ys, ReconstructionStats stats) {
+            int k = xs.length;
+            if (shareXs.length != k || ys.length != k) {
+                throw new IllegalArgumentException("Expected " + k + " shares, got " + ys.length);
+            }
+
+            BigInteger sum = BigInteger.ZERO;
+            boolean sorted = true;
+            for (int i = 0; i < k && sorted; i++) {
+                sorted = shareXs[i].equals(xs[i]);
+            }
+            if (sorted) {
+                for (int i = 0; i < k; i++) {
+                    if (ys[i].signum() == 0) continue;
+                    BigInteger term = w[i].multiply(ys[i]);
+                    sum = sum.add(term);
+                    if (stats != null) {
+                        stats.bits(term);
+                        stats.bits(sum);
+                    }
+                }
+            } else {
+                boolean[] seen = new boolean[k];
+                for (int i = 0; i < k; i++) {
+                    int slot = Arrays.binarySearch(xs, shareXs[i]);
+                    if (slot < 0 || seen[slot]) {
+                        throw new IllegalArgumentException("x = " + shareXs[i] + " is not in this x-set");
+                    }
+                    seen[slot] = true;
+                    if (ys[i].signum() == 0) continue;
+                    BigInteger term = w[slot].multiply(ys[i]);
+                    sum = sum.add(term);
+                    if (stats != null) {
+                        stats.bits(term);
+                        stats.bits(sum);
+                    }
+                }
+            }
+            if (stats != null && prime == null) {
+                stats.bits(w[k]);
+            }
+
+            if (prime != null) {
+                return new BigInteger[] { sum.mod(prime), BigInteger.ONE };
+            }
+            return new BigInteger[] { sum, w[k] };
+        }
+
+        // The weights in the order of shareXs, which must be this set's x's, with the
+        // common denominator appended over the rationals; for applying one set of
+        // weights to many y-columns (ColumnLagrange)
+        BigInteger[] inOrder(BigInteger[] shareXs) {
+            int k = xs.length;
+            if (shareXs.length != k) {
+                throw new IllegalArgumentException("Expected " + k + " shares, got " + shareXs.length);
+            }
+            BigInteger[] ordered = Arrays.copyOf(w, w.length);
+            boolean[] seen = new boolean[k];
+            for (int i = 0; i < k; i++) {
+                int slot = shareXs[i].equals(xs[i]) ? i : Arrays.binarySearch(xs, shareXs[i]);
+                if (slot < 0 || seen[slot]) {
+                    throw new IllegalArgumentException("x = " + shareXs[i] + " is not in this x-set");
+                }
+                seen[slot] = true;
+                ordered[i] = w[slot];
+            }
+            return ordered;
+        }
+
+        public int size() {
+            return xs.length;
+        }
+    }
+
+    private static final class Key {
+        private final BigInteger[] xs;
+        private final BigInteger prime;
+        private final int hash;
+
+        Key(BigInteger[] xs, BigInteger prime) {
+            this.xs = xs;
+            this.prime = prime;
+            this.hash = 31 * Arrays.hashCode(xs) + (prime == null ? 0 : prime.hashCode());
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) return false;
+            Key other = (Key) o;
+            return hash == other.hash
+                    && (prime == null ? other.prime == null : prime.equals(other.prime))
+                    && Arrays.equals(xs, other.xs);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
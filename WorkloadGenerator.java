@@ -0,0 +1,247 @@
+import java.io.*;
+import java.math.BigInteger;
+import java.nio.file.*;
+import java.util.Random;
+
+// Seeded share files at production sizes, for PerfSuite and for reproducing reports.
+//
+// A workload is fixed by its spec: threshold k, share count n, value size, an
+// optional prime, the base (one base, or a seeded mix over 2..36), how many shares
+// are corrupted and the seed; the same spec always produces the same file. Instead
+// of drawing coefficients, the shares at x = 1..k-1 are drawn at random next to the
+// secret at x = 0, which pins down one polynomial of degree k - 1, and every further
+// share comes from the k-th differences vanishing:
+//   f(x) = sum_{j=1..k} (-1)^(j+1) C(k, j) f(x - j)
+// That is O(k) per share past the first k, so k = 100,000 over GF(p) takes seconds
+// where Horner at every x would take O(k^2). Over the integers the recurrence goes
+// negative, which the file format cannot hold, so there the coefficients are drawn
+// non-negative and evaluated with Horner; the shares then carry about k log2(n)
+// bits more than the secret, which keeps rational workloads to k in the hundreds.
+// Corrupted shares get a fresh random value; GaoDecoder copes when
+// n >= k + 2 * corrupt.
+public final class WorkloadGenerator {
+
+    // base for a share picked per share from the seeded stream
+    public static final int MIXED_BASES = 0;
+
+    public final String name;
+    public final int k;
+    public final int n;
+    public final int bits;
+    public final BigInteger prime;
+    public final int base;
+    public final int corrupt;
+    public final long seed;
+
+    public WorkloadGenerator(String name, int k, int n, int bits, BigInteger prime, int base, int corrupt, long seed) {
+        if (k < 1 || n < k) {
+            throw new IllegalArgumentException("Need 1 <= k <= n, got k = " + k + ", n = " + n);
+        }
+        if (corrupt < 0 || corrupt > n) {
+            throw new IllegalArgumentException("Cannot corrupt " + corrupt + " of " + n + " shares");
+        }
+        if (prime != null && BigInteger.valueOf(n).compareTo(prime) >= 0) {
+            throw new IllegalArgumentException("Need n < p for " + n + " distinct non-zero x's");
+        }
+        if (base != MIXED_BASES && (base < 2 || base > 36)) {
+            throw new IllegalArgumentException("Unsupported base: " + base);
+        }
+        this.name = name;
+        this.k = k;
+        this.n = n;
+        this.bits = prime != null ? prime.bitLength() : bits;
+        this.prime = prime;
+        this.base = base;
+        this.corrupt = corrupt;
+        this.seed = seed;
+    }
+
+    // f(0); derived from the seed alone, so it is known without generating the file
+    public BigInteger secret() {
+        BigInteger s = new BigInteger(bits - 1, new Random(seed));
+        return prime != null ? s.mod(prime) : s;
+    }
+
+    // The shares, sorted by x, with their bases
+    public ShareSet shares() {
+        Random random = new Random(seed);
+        BigInteger secret = new BigInteger(bits - 1, random);
+        BigInteger[] xs = new BigInteger[n];
+        BigInteger[] ys = new BigInteger[n];
+        byte[] bases = new byte[n];
+        for (int x = 1; x <= n; x++) {
+            xs[x - 1] = BigInteger.valueOf(x);
+        }
+        if (prime != null) {
+            extrapolate(secret.mod(prime), random, ys);
+        } else {
+            evaluate(secret, random, ys);
+        }
+        for (int i = 0; i < n; i++) {
+            bases[i] = (byte) (base == MIXED_BASES ? 2 + random.nextInt(35) : base);
+        }
+
+        Random corruption = new Random(seed ^ 0x5eed);
+        int[] order = new int[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+        }
+        for (int c = 0; c < corrupt; c++) {
+            int pick = c + corruption.nextInt(n - c);
+            int i = order[pick];
+            order[pick] = order[c];
+            order[c] = i;
+            BigInteger bad;
+            do {
+                bad = draw(corruption);
+            } while (bad.equals(ys[i]));
+            ys[i] = bad;
+        }
+        return new ShareSet(n, k, prime, xs, ys, bases);
+    }
+
+    // Writes the share file
+    public void write(OutputStream out) throws IOException {
+        BinaryShares.writeJson(shares(), out, 10);
+    }
+
+    // dir/name.json, generated only when it is not there yet
+    public Path file(Path dir) throws IOException {
+        Path file = dir.resolve(name + ".json");
+        if (!Files.exists(file)) {
+            Files.createDirectories(dir);
+            Path partial = dir.resolve(name + ".json.part");
+            try (OutputStream out = Files.newOutputStream(partial)) {
+                write(out);
+            }
+            Files.move(partial, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return file;
+    }
+
+    // GF(p): f(1..k-1) at random, the rest from the vanishing k-th differences
+    private void extrapolate(BigInteger secret, Random random, BigInteger[] ys) {
+        // window[x mod (k + 1)] = f(x) for the k + 1 most recent x
+        BigInteger[] window = new BigInteger[k + 1];
+        BigInteger[] binomials = binomials();
+        window[0] = secret;
+        for (int x = 1; x <= n; x++) {
+            BigInteger y;
+            if (x < k) {
+                y = draw(random);
+            } else {
+                y = BigInteger.ZERO;
+                for (int j = 1; j <= k; j++) {
+                    BigInteger term = binomials[j].multiply(window[(x - j) % (k + 1)]);
+                    y = (j & 1) == 1 ? y.add(term) : y.subtract(term);
+                }
+                y = y.mod(prime);
+            }
+            window[x % (k + 1)] = y;
+            ys[x - 1] = y;
+        }
+    }
+
+    // Integers: non-negative coefficients and Horner, so no share comes out negative
+    // (the file format has no sign)
+    private void evaluate(BigInteger secret, Random random, BigInteger[] ys) {
+        BigInteger[] coefficients = new BigInteger[k];
+        coefficients[0] = secret;
+        for (int j = 1; j < k; j++) {
+            coefficients[j] = draw(random);
+        }
+        for (int x = 1; x <= n; x++) {
+            BigInteger y = coefficients[k - 1];
+            for (int j = k - 2; j >= 0; j--) {
+                y = y.multiply(BigInteger.valueOf(x)).add(coefficients[j]);
+            }
+            ys[x - 1] = y;
+        }
+    }
+
+    private BigInteger draw(Random random) {
+        if (prime == null) {
+            return new BigInteger(bits, random);
+        }
+        BigInteger value;
+        do {
+            value = new BigInteger(bits, random);
+        } while (value.compareTo(prime) >= 0);
+        return value;
+    }
+
+    // C(k, j) for j = 0..k, reduced mod p in a prime field
+    private BigInteger[] binomials() {
+        BigInteger[] c = new BigInteger[k + 1];
+        c[0] = BigInteger.ONE;
+        if (prime == null) {
+            for (int j = 1; j <= k; j++) {
+                c[j] = c[j - 1].multiply(BigInteger.valueOf(k - j + 1)).divide(BigInteger.valueOf(j));
+            }
+            return c;
+        }
+        BigInteger[] counts = new BigInteger[k];
+        for (int j = 1; j <= k; j++) {
+            counts[j - 1] = BigInteger.valueOf(j);
+        }
+        BigInteger[] inverses = Lagrange.batchInverse(counts, prime);
+        for (int j = 1; j <= k; j++) {
+            c[j] = c[j - 1].multiply(BigInteger.valueOf(k - j + 1)).multiply(inverses[j - 1]).mod(prime);
+        }
+        return c;
+    }
+
+    public static void main(String[] args) {
+        String usage = "Usage: java WorkloadGenerator --k <k> [--n <n>] [--bits <b>] [--prime <p>] "
+                     + "[--base <b>|mixed] [--corrupt <c>] [--seed <s>] --out <file.json>";
+        int k = -1;
+        int n = -1;
+        int bits = 256;
+        BigInteger prime = null;
+        int base = 10;
+        int corrupt = 0;
+        long seed = 1;
+        String out = null;
+        boolean valid = true;
+        for (int i = 0; i < args.length; i++) {
+            if (i + 1 >= args.length) {
+                valid = false;
+                break;
+            }
+            switch (args[i]) {
+                case "--k": k = Integer.parseInt(args[++i]); break;
+                case "--n": n = Integer.parseInt(args[++i]); break;
+                case "--bits": bits = Integer.parseInt(args[++i]); break;
+                case "--prime": prime = new BigInteger(args[++i]); break;
+                case "--base":
+                    String b = args[++i];
+                    base = b.equals("mixed") ? MIXED_BASES : Integer.parseInt(b);
+                    break;
+                case "--corrupt": corrupt = Integer.parseInt(args[++i]); break;
+                case "--seed": seed = Long.parseLong(args[++i]); break;
+                case "--out": out = args[++i]; break;
+                default: valid = false;
+            }
+            if (!valid) break;
+        }
+        if (!valid || k < 1 || out == null) {
+            System.err.println(usage);
+            System.exit(1);
+        }
+
+        try {
+            long start = System.nanoTime();
+            WorkloadGenerator workload = new WorkloadGenerator(Paths.get(out).getFileName().toString(),
+                    k, n < 0 ? k : n, bits, prime, base, corrupt, seed);
+            try (OutputStream stream = new FileOutputStream(out)) {
+                workload.write(stream);
+            }
+            System.err.printf("secret %s, %d bytes, %.1f ms%n", workload.secret(),
+                    Files.size(Paths.get(out)), (System.nanoTime() - start) / 1e6);
+        } catch (Exception e) {
+            System.err.println("Error: " + e.getMessage());
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package benchmark;
+
+import java.math.BigInteger;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+// BaseConversion.parse against the per-digit loop parseFromBase used before it, and
+// against the JDK's own BigInteger(String, radix).
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BaseConversionBenchmark {
+
+    @Param({ "3", "10", "16", "36" })
+    int base;
+
+    @Param({ "20", "200", "2000", "20000" })
+    int digits;
+
+    String value;
+
+    @Setup
+    public void generate() {
+        value = ShareSets.digits(31L * base + digits, base, digits);
+    }
+
+    @Benchmark
+    public BigInteger chunked() throws Throwable {
+        return (BigInteger) Targets.PARSE.invokeExact((CharSequence) value, base);
+    }
+
+    @Benchmark
+    public BigInteger perDigitLoop() {
+        BigInteger result = BigInteger.ZERO;
+        BigInteger baseBI = BigInteger.valueOf(base);
+        for (char c : value.toLowerCase().toCharArray()) {
+            int digitValue = ShareSets.DIGITS.indexOf(c);
+            if (digitValue < 0 || digitValue >= base) {
+                throw new IllegalArgumentException("Invalid digit '" + c + "' for base " + base);
+            }
+            result = result.multiply(baseBI).add(BigInteger.valueOf(digitValue));
+        }
+        return result;
+    }
+
+    @Benchmark
+    public BigInteger jdk() {
+        return new BigInteger(value, base);
+    }
+}
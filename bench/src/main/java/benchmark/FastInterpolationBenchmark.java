@@ -0,0 +1,43 @@
+package benchmark;
+
+import java.math.BigInteger;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+// Lagrange weights mod p: the O(k^2) products of Lagrange.weightsMod against the
+// subproduct trees of FastInterpolation, to place FastInterpolation.crossover.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FastInterpolationBenchmark {
+
+    @Param({ "256", "512", "1024", "2048", "4096", "8192" })
+    int k;
+
+    // Mersenne primes 2^61 - 1, 2^127 - 1 and 2^521 - 1
+    @Param({ "61", "127", "521" })
+    int primeBits;
+
+    BigInteger[] xs;
+    BigInteger p;
+
+    @Setup
+    public void generate() {
+        xs = ShareSets.points(11L, k, 1, 8)[0];
+        p = BigInteger.TWO.pow(primeBits).subtract(BigInteger.ONE);
+    }
+
+    @Benchmark
+    public BigInteger[] quadraticWeights() throws Throwable {
+        return (BigInteger[]) Targets.LAGRANGE_WEIGHTS_MOD.invokeExact(xs, p);
+    }
+
+    @Benchmark
+    public BigInteger[] treeWeights() throws Throwable {
+        return (BigInteger[]) Targets.TREE_WEIGHTS_MOD.invokeExact(xs, p);
+    }
+}
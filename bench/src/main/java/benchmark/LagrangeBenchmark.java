@@ -0,0 +1,87 @@
+package benchmark;
+
+import java.math.BigInteger;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+// f(0) over the rationals and over a 521-bit prime field for thresholds 3..5000: from
+// scratch, with the weights for the x-set already in a WeightCache, and with the
+// terms spread over a ForkJoinPool of the given size. smallPrime runs mod 2^61 - 1,
+// which Lagrange.atZeroMod hands to the long-based PrimeField64.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LagrangeBenchmark {
+
+    static final BigInteger P521 = BigInteger.TWO.pow(521).subtract(BigInteger.ONE);
+    static final BigInteger P61 = BigInteger.TWO.pow(61).subtract(BigInteger.ONE);
+
+    @Param({ "3", "7", "100", "1000", "5000" })
+    int k;
+
+    @Param({ "256" })
+    int bits;
+
+    BigInteger[] xs;
+    BigInteger[] ys;
+    Object cache;
+
+    @Param({ "4" })
+    int threads;
+
+    ForkJoinPool pool;
+
+    @Setup
+    public void generate() throws Throwable {
+        BigInteger[][] points = ShareSets.points(11L, k, k, bits);
+        xs = points[0];
+        ys = points[1];
+        cache = (Object) Targets.WEIGHT_CACHE_NEW.invokeExact(4);
+        pool = new ForkJoinPool(threads);
+    }
+
+    @TearDown
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public BigInteger[] rational() throws Throwable {
+        return (BigInteger[]) Targets.LAGRANGE_REDUCE.invokeExact((BigInteger[]) Targets.LAGRANGE_AT_ZERO.invokeExact(xs, ys));
+    }
+
+    @Benchmark
+    public BigInteger primeField() throws Throwable {
+        return (BigInteger) Targets.LAGRANGE_AT_ZERO_MOD.invokeExact(xs, ys, P521);
+    }
+
+    @Benchmark
+    public BigInteger smallPrime() throws Throwable {
+        return (BigInteger) Targets.LAGRANGE_AT_ZERO_MOD.invokeExact(xs, ys, P61);
+    }
+
+    @Benchmark
+    public BigInteger[] cachedRational() throws Throwable {
+        return (BigInteger[]) Targets.LAGRANGE_REDUCE.invokeExact((BigInteger[]) Targets.WEIGHT_CACHE_AT_ZERO.invokeExact(cache, xs, ys));
+    }
+
+    @Benchmark
+    public BigInteger cachedPrimeField() throws Throwable {
+        return (BigInteger) Targets.WEIGHT_CACHE_AT_ZERO_MOD.invokeExact(cache, xs, ys, P521);
+    }
+
+    @Benchmark
+    public BigInteger[] parallelRational() throws Throwable {
+        return (BigInteger[]) Targets.PARALLEL_AT_ZERO.invokeExact(xs, ys, pool);
+    }
+
+    @Benchmark
+    public BigInteger parallelPrimeField() throws Throwable {
+        return (BigInteger) Targets.PARALLEL_AT_ZERO_MOD.invokeExact(xs, ys, P521, pool);
+    }
+}
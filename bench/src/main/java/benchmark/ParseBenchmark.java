@@ -0,0 +1,85 @@
+package benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import com.google.gson.JsonParser;
+import org.openjdk.jmh.annotations.*;
+
+// The ways a share file becomes points: a Gson tree, the String-splitting
+// parseSimpleJson, the streaming ShareReader (all shares, or only the k selected),
+// the same shares in the binary format, and ShamirJava's hardcoded sample.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParseBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Corpus {
+        @Param({ "10", "1000", "100000" })
+        int shares;
+
+        @Param({ "7" })
+        int k;
+
+        @Param({ "256" })
+        int bits;
+
+        String json;
+        ByteBuffer binary;
+
+        @Setup
+        public void generate() throws Throwable {
+            json = ShareSets.json(7L, shares, k, bits);
+            Object set = (Object) Targets.SHARE_READER.invokeExact((Reader) new StringReader(json), false);
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            Targets.BINARY_WRITE.invokeExact(set, (OutputStream) out);
+            binary = ByteBuffer.allocateDirect(out.size());
+            binary.put(out.toByteArray()).flip();
+        }
+    }
+
+    @Benchmark
+    public Object gson(Corpus corpus) throws Throwable {
+        return (List<?>) Targets.GSON_EXTRACT.invokeExact(JsonParser.parseString(corpus.json).getAsJsonObject());
+    }
+
+    @Benchmark
+    public Object simpleJson(Corpus corpus) throws Throwable {
+        Map<?, ?> json = (Map<?, ?>) Targets.SIMPLE_PARSE.invokeExact(corpus.json);
+        return (List<?>) Targets.SIMPLE_EXTRACT.invokeExact(json);
+    }
+
+    @Benchmark
+    public Object streaming(Corpus corpus) throws Throwable {
+        return (Object) Targets.SHARE_READER.invokeExact((Reader) new StringReader(corpus.json), false);
+    }
+
+    @Benchmark
+    public Object streamingSelectK(Corpus corpus) throws Throwable {
+        return (Object) Targets.SHARE_READER.invokeExact((Reader) new StringReader(corpus.json), true);
+    }
+
+    @Benchmark
+    public Object binary(Corpus corpus) throws Throwable {
+        return (Object) Targets.BINARY_READ.invokeExact(corpus.binary, false);
+    }
+
+    @Benchmark
+    public Object binarySelectK(Corpus corpus) throws Throwable {
+        return (Object) Targets.BINARY_READ.invokeExact(corpus.binary, true);
+    }
+
+    @Benchmark
+    public Object hardcodedPoints() throws Throwable {
+        return (List<?>) Targets.HARDCODED_POINTS.invokeExact("sample2");
+    }
+}
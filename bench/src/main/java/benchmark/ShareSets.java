@@ -0,0 +1,65 @@
+package benchmark;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+// Seeded share sets, so every run and every commit benchmarks the same inputs.
+//
+// A degree k - 1 polynomial with random coefficients of the given bit length is
+// evaluated at x = 1..n; the JSON form writes each value in a random base 2..36.
+final class ShareSets {
+
+    static final String DIGITS = "0123456789abcdefghijklmnopqrstuvwxyz";
+
+    private ShareSets() {
+    }
+
+    // {xs, ys} for x = 1..n
+    static BigInteger[][] points(long seed, int n, int k, int bits) {
+        Random rnd = new Random(seed);
+        BigInteger[] coefficients = new BigInteger[k];
+        for (int i = 0; i < k; i++) {
+            coefficients[i] = new BigInteger(bits, rnd);
+        }
+
+        BigInteger[] xs = new BigInteger[n];
+        BigInteger[] ys = new BigInteger[n];
+        for (int i = 0; i < n; i++) {
+            BigInteger x = BigInteger.valueOf(i + 1);
+            BigInteger y = BigInteger.ZERO;
+            for (int c = k - 1; c >= 0; c--) {
+                y = y.multiply(x).add(coefficients[c]);
+            }
+            xs[i] = x;
+            ys[i] = y;
+        }
+        return new BigInteger[][] { xs, ys };
+    }
+
+    // The same points as a share file in the keys/base/value format
+    static String json(long seed, int n, int k, int bits) {
+        BigInteger[][] points = points(seed, n, k, bits);
+        Random rnd = new Random(~seed);
+        StringBuilder json = new StringBuilder(n * (bits / 3 + 48));
+        json.append("{\n  \"keys\": {\n    \"n\": ").append(n)
+            .append(",\n    \"k\": ").append(k).append("\n  }");
+        for (int i = 0; i < n; i++) {
+            int base = 2 + rnd.nextInt(35);
+            json.append(",\n  \"").append(points[0][i]).append("\": {\n")
+                .append("    \"base\": \"").append(base).append("\",\n")
+                .append("    \"value\": \"").append(points[1][i].toString(base)).append("\"\n  }");
+        }
+        return json.append("\n}\n").toString();
+    }
+
+    // Random digits in the given base with a non-zero leading digit
+    static String digits(long seed, int base, int length) {
+        Random rnd = new Random(seed);
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            chars[i] = DIGITS.charAt(rnd.nextInt(base));
+        }
+        chars[0] = DIGITS.charAt(1 + rnd.nextInt(base - 1));
+        return new String(chars);
+    }
+}
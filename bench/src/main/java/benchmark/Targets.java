@@ -0,0 +1,116 @@
+package benchmark;
+
+import java.io.OutputStream;
+import java.io.Reader;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import com.google.gson.JsonObject;
+
+// Handles onto the production classes. They live in the unnamed package, which
+// cannot be imported from here (and JMH refuses benchmarks in the unnamed package),
+// so each entry point is looked up once and called through invokeExact.
+final class Targets {
+
+    static final MethodHandle LAGRANGE_AT_ZERO = find("Lagrange", "atZero",
+            BigInteger[].class, BigInteger[].class, BigInteger[].class);
+    static final MethodHandle LAGRANGE_AT_ZERO_MOD = find("Lagrange", "atZeroMod",
+            BigInteger.class, BigInteger[].class, BigInteger[].class, BigInteger.class);
+    static final MethodHandle LAGRANGE_REDUCE = find("Lagrange", "reduce",
+            BigInteger[].class, BigInteger[].class);
+
+    static final MethodHandle LAGRANGE_WEIGHTS_MOD = find("Lagrange", "weightsMod",
+            BigInteger[].class, BigInteger[].class, BigInteger.class);
+    static final MethodHandle TREE_WEIGHTS_MOD = find("FastInterpolation", "weightsMod",
+            BigInteger[].class, BigInteger[].class, BigInteger.class);
+
+    static final MethodHandle PARALLEL_AT_ZERO = find("ParallelLagrange", "atZero",
+            BigInteger[].class, BigInteger[].class, BigInteger[].class, ForkJoinPool.class);
+    static final MethodHandle PARALLEL_AT_ZERO_MOD = find("ParallelLagrange", "atZeroMod",
+            BigInteger.class, BigInteger[].class, BigInteger[].class, BigInteger.class, ForkJoinPool.class);
+
+    // new WeightCache(int) as Object, and its atZero/atZeroMod with the receiver erased
+    static final MethodHandle WEIGHT_CACHE_NEW = constructor("WeightCache", int.class);
+    static final MethodHandle WEIGHT_CACHE_AT_ZERO = virtual("WeightCache", "atZero",
+            BigInteger[].class, BigInteger[].class, BigInteger[].class);
+    static final MethodHandle WEIGHT_CACHE_AT_ZERO_MOD = virtual("WeightCache", "atZeroMod",
+            BigInteger.class, BigInteger[].class, BigInteger[].class, BigInteger.class);
+
+    static final MethodHandle PARSE = find("BaseConversion", "parse",
+            BigInteger.class, CharSequence.class, int.class);
+
+    static final MethodHandle GSON_EXTRACT = find("ShamirSecret", "extractPoints",
+            List.class, JsonObject.class);
+    static final MethodHandle SIMPLE_PARSE = find("ShamirSecretSimple", "parseSimpleJson",
+            Map.class, String.class);
+    static final MethodHandle SIMPLE_EXTRACT = find("ShamirSecretSimple", "extractPoints",
+            List.class, Map.class);
+    static final MethodHandle HARDCODED_POINTS = find("ShamirJava", "samplePoints",
+            List.class, String.class);
+
+    // ShareReader.read returns a ShareSet, seen here as Object
+    static final MethodHandle SHARE_READER = find("ShareReader", "read",
+            null, Reader.class, boolean.class);
+
+    // BinaryShares.read of a ByteBuffer, and write(ShareSet, OutputStream) with the
+    // share set erased to Object
+    static final MethodHandle BINARY_READ = find("BinaryShares", "read",
+            null, ByteBuffer.class, boolean.class);
+    static final MethodHandle BINARY_WRITE = binaryWrite();
+
+    private Targets() {
+    }
+
+    private static MethodHandle binaryWrite() {
+        try {
+            MethodHandle handle = MethodHandles.publicLookup().findStatic(Class.forName("BinaryShares"), "write",
+                    MethodType.methodType(void.class, Class.forName("ShareSet"), OutputStream.class));
+            return handle.asType(handle.type().changeParameterType(0, Object.class));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    static MethodHandle constructor(String className, Class<?>... params) {
+        try {
+            MethodHandle handle = MethodHandles.publicLookup().findConstructor(Class.forName(className),
+                    MethodType.methodType(void.class, params));
+            return handle.asType(handle.type().changeReturnType(Object.class));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    static MethodHandle virtual(String className, String name, Class<?> returnType, Class<?>... params) {
+        try {
+            MethodHandle handle = MethodHandles.publicLookup().findVirtual(Class.forName(className), name,
+                    MethodType.methodType(returnType, params));
+            return handle.asType(handle.type().changeParameterType(0, Object.class));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    // A static method handle; a null return type keeps the declared one but erases
+    // it to Object
+    static MethodHandle find(String className, String name, Class<?> returnType, Class<?>... params) {
+        try {
+            Class<?> owner = Class.forName(className);
+            if (returnType == null) {
+                MethodHandle handle = MethodHandles.publicLookup().findStatic(owner, name,
+                        MethodType.methodType(owner.getMethod(name, params).getReturnType(), params));
+                return handle.asType(handle.type().changeReturnType(Object.class));
+            }
+            return MethodHandles.publicLookup().findStatic(owner, name,
+                    MethodType.methodType(returnType, params));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+}
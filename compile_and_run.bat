@@ -1,6 +1,6 @@
 @echo off
 echo Compiling Java solution...
-javac -cp "gson-2.10.1.jar" ShamirSecret.java
+javac -cp ".;gson-2.10.1.jar" *.java
 
 if %ERRORLEVEL% NEQ 0 (
     echo Compilation failed!